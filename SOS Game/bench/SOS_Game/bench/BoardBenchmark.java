@@ -0,0 +1,101 @@
+package SOS_Game.bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import SOS_Game.src.BitBoard;
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile;
+import SOS_Game.src.Pair;
+
+/**
+ * Per-move costs of {@link Board}: placing tiles, detecting SOS lines and finding empty tiles.
+ */
+@State(Scope.Thread)
+public class BoardBenchmark {
+    private static final int SIZE = 9;
+
+    @Param({"General", "Simple"})
+    public Board.GameMode mode;
+
+    private Board board;
+    private Board halfFull;
+    private BitBoard randomCells;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        board = new Board(SIZE, random);
+        board.setGameMode(mode);
+
+        halfFull = new Board(SIZE, random);
+        ArrayList<Pair> empty = halfFull.getEmptyTiles();
+        for (int i = 0; i < SIZE * SIZE / 2; i++) {
+            Pair tile = empty.remove(random.nextInt(empty.size()));
+            halfFull.makeMove(tile.first, tile.second);
+        }
+
+        randomCells = new BitBoard(SIZE);
+        for (int cell = 0; cell < SIZE * SIZE; cell++) {
+            randomCells.set(cell, random.nextBoolean() ? BoardTile.TileValue.S : BoardTile.TileValue.O);
+        }
+    }
+
+    /**
+     * Fills the board row by row, alternating S and O, so every move also pays for line detection and scoring.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE)
+    public Board.State makeMove() {
+        board.initBoard();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                board.getTurn().setTile((row + col) % 2 == 0 ? BoardTile.TileValue.S : BoardTile.TileValue.O);
+                board.makeMove(row, col);
+            }
+        }
+        return board.getGameState();
+    }
+
+    /**
+     * The win detection done after every move: the lines through one placed tile.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SIZE * SIZE)
+    public int registerWin() {
+        int found = 0;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                found += randomCells.linesThrough(row, col, null);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A full board scan for lines, for comparison with the incremental check.
+     */
+    @Benchmark
+    public void findLines(Blackhole blackhole) {
+        for (int direction = 0; direction < BitBoard.DIRECTIONS; direction++) {
+            blackhole.consume(randomCells.findLines(direction));
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Pair> getEmptyTiles() {
+        return halfFull.getEmptyTiles();
+    }
+
+    @Benchmark
+    public boolean isFull() {
+        return halfFull.isFull();
+    }
+}
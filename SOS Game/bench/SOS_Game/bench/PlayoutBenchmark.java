@@ -0,0 +1,55 @@
+package SOS_Game.bench;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import SOS_Game.src.Board;
+import SOS_Game.src.EmptyCells;
+import SOS_Game.src.Player;
+import SOS_Game.src.Position;
+
+/**
+ * Complete random games at every board size the GUI offers, on a {@link Board} and on a bare {@link Position}.
+ */
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+    @Param({"3", "4", "5", "6", "7", "8", "9"})
+    public int size;
+
+    @Param({"General", "Simple"})
+    public Board.GameMode mode;
+
+    private Board board;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        board = new Board(size, new Random(1));
+        board.setGameMode(mode);
+        board.playerOne.setStyle(Player.PlayStyle.Computer);
+        board.playerTwo.setStyle(Player.PlayStyle.Computer);
+        random = new SplittableRandom(1);
+    }
+
+    @Benchmark
+    public Board.State boardGame() {
+        board.initBoard();
+        board.makeComputerMove();
+        return board.getGameState();
+    }
+
+    @Benchmark
+    public int positionGame() {
+        Position position = new Position(size, mode);
+        while (!position.isOver()) {
+            EmptyCells empty = position.getEmptyCells();
+            position.play(empty.get(random.nextInt(empty.size())) * 2 + random.nextInt(2));
+        }
+        return position.getPoints(Position.PLAYER_ONE) - position.getPoints(Position.PLAYER_TWO);
+    }
+}
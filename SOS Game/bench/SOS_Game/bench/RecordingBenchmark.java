@@ -0,0 +1,84 @@
+package SOS_Game.bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import SOS_Game.src.BoardTile;
+import SOS_Game.src.GameReader;
+import SOS_Game.src.GameWriter;
+import SOS_Game.src.Player;
+
+/**
+ * Serializing a 9x9 game with {@link GameWriter} and parsing it back with {@link GameReader}.
+ */
+@State(Scope.Thread)
+public class RecordingBenchmark {
+    private static final int SIZE = 9;
+
+    private final Player playerOne = new Player(BoardTile.TileValue.S, "Player 1");
+    private final Player playerTwo = new Player(BoardTile.TileValue.O, "Player 2");
+    private int[] rows;
+    private int[] columns;
+    private String recording;
+    private GameReader reader;
+    private File file;
+    /** Appended to by every {@code writeGame} invocation; only the hand-off to the I/O thread is measured. */
+    private File output;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(1);
+        rows = new int[SIZE * SIZE];
+        columns = new int[SIZE * SIZE];
+        StringBuilder contents = new StringBuilder(String.format("Board has been initialized at size %s.\n", SIZE));
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = random.nextInt(SIZE);
+            columns[i] = random.nextInt(SIZE);
+            Player player = i % 2 == 0 ? playerOne : playerTwo;
+            contents.append(String.format("%s: (%s,%s)\n", player, rows[i], columns[i]));
+        }
+        recording = contents.toString();
+
+        file = File.createTempFile("benchmark", ".sos");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(recording);
+        }
+        reader = new GameReader(file);
+        output = File.createTempFile("benchmark", ".sos");
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+        output.delete();
+    }
+
+    @Benchmark
+    public GameWriter writeGame() {
+        GameWriter writer = new GameWriter(output);
+        writer.writeMessage(String.format("Board has been initialized at size %s.\n", SIZE));
+        for (int i = 0; i < rows.length; i++) {
+            writer.writeMove(rows[i], columns[i], i % 2 == 0 ? playerOne : playerTwo);
+        }
+        writer.close();
+        return writer;
+    }
+
+    @Benchmark
+    public ArrayList<GameReader.Move> parseGame() {
+        return reader.read(recording);
+    }
+
+    @Benchmark
+    public GameReader readFile() throws IOException {
+        return new GameReader(file);
+    }
+}
@@ -0,0 +1,38 @@
+package SOS_Game.src;
+
+import java.io.IOException;
+
+/**
+ * Records a game in the binary format and appends it to the shared {@link GameArchive} once it is finished, instead of
+ * giving it a file of its own. The append runs on the {@link AsyncFileAppender} I/O thread, so finishing a game never
+ * waits for the disk. Games that are abandoned before they finish are not archived.
+ */
+public class ArchiveGameWriter extends BinaryGameWriter {
+    private final Board board;
+    private boolean archived;
+
+    public ArchiveGameWriter(Board board) {
+        super(board, null);
+        this.board = board;
+    }
+
+    @Override
+    public void writeToFile() {
+        if (this.archived) {
+            return;
+        }
+        this.archived = true;
+        // Take everything from the board now; the append itself runs on the I/O thread, off the game thread.
+        byte[] recording = toByteArray();
+        long timestamp = System.currentTimeMillis();
+        int boardSize = this.board.getBoardSize();
+        Board.GameMode mode = this.board.getGameMode();
+        AsyncFileAppender.getDefault().execute(() -> {
+            try {
+                GameArchive.getDefault().append(recording, timestamp, boardSize, mode);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+}
@@ -0,0 +1,295 @@
+package SOS_Game.src;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Appends recordings to their files from a single background I/O thread.
+ * <p>
+ * Game threads hand chunks of bytes to a bounded queue and return immediately. The I/O thread drains the queue in
+ * batches, appends each chunk to its file and, depending on the {@link FsyncPolicy}, forces the data to disk. When
+ * the queue is full a {@link Handle} keeps the bytes and hands them over together with its next chunk, so appending
+ * never drops data and only waits once a handle holds back {@link #MAX_PENDING} bytes, until the queue has room.
+ */
+public final class AsyncFileAppender {
+    public enum FsyncPolicy {
+        /** Leave flushing to the operating system. */
+        Never,
+        /** Force a file to disk when its recording is closed. */
+        OnClose,
+        /** Force every file written to at the end of each batch. */
+        EveryBatch
+    }
+
+    /** The most bytes a handle holds back before an append waits for room in the queue. */
+    public static final int MAX_PENDING = 1 << 20;
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int MAX_BATCH = 256;
+    private static final AsyncFileAppender DEFAULT = new AsyncFileAppender(QUEUE_CAPACITY);
+
+    private final ArrayBlockingQueue<Chunk> queue;
+    /** The handles holding back bytes that the queue had no room for. */
+    private final Set<Handle> backlogged = ConcurrentHashMap.newKeySet();
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.OnClose;
+
+    public AsyncFileAppender(int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread thread = new Thread(this::run, "sos-recorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return The appender shared by every recording of this process.
+     */
+    public static AsyncFileAppender getDefault() {
+        return DEFAULT;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return this.fsyncPolicy;
+    }
+
+    public void setFsyncPolicy(FsyncPolicy policy) {
+        this.fsyncPolicy = policy;
+    }
+
+    /**
+     * Prepares to append to the given file. Nothing is opened until the first chunk reaches the I/O thread.
+     */
+    public Handle open(File file) {
+        return new Handle(file);
+    }
+
+    /**
+     * Waits until every chunk appended before this call has been written, and forced to disk if the policy asks,
+     * including the bytes handles were holding back.
+     */
+    public void sync() throws InterruptedException {
+        for (Handle handle : this.backlogged) {
+            handle.flush();
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        this.queue.put(new Chunk(null, null, false, done, null));
+        done.await();
+    }
+
+    /**
+     * Runs a task on the I/O thread, in order with the chunks handed over around it. This only waits if the queue is
+     * full, and never for the disk.
+     */
+    public void execute(Runnable task) {
+        try {
+            this.queue.put(new Chunk(null, null, false, null, task));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The appending end of one file. A handle must only be appended to from one thread at a time, though
+     * {@link #sync()} may hand its pending bytes over from another.
+     */
+    public final class Handle {
+        private final File file;
+        private byte[] pending = new byte[0];
+        private int pendingLength;
+        private boolean closed;
+        /** Owned by the I/O thread. */
+        private FileChannel channel;
+        private boolean failed;
+
+        private Handle(File file) {
+            this.file = file;
+        }
+
+        public File getFile() {
+            return this.file;
+        }
+
+        public void append(byte[] bytes) {
+            append(bytes, 0, bytes.length);
+        }
+
+        public synchronized void append(byte[] bytes, int offset, int length) {
+            assert (!this.closed) : String.format("Append to closed recording %s.", this.file);
+            byte[] chunk;
+            if (this.pendingLength == 0) {
+                chunk = Arrays.copyOfRange(bytes, offset, offset + length);
+            } else {
+                chunk = Arrays.copyOf(this.pending, this.pendingLength + length);
+                System.arraycopy(bytes, offset, chunk, this.pendingLength, length);
+            }
+            if (queue.offer(new Chunk(this, chunk, false, null, null))) {
+                this.pending = new byte[0];
+                this.pendingLength = 0;
+                backlogged.remove(this);
+                return;
+            }
+            this.pending = chunk;
+            this.pendingLength = chunk.length;
+            backlogged.add(this);
+            if (chunk.length >= MAX_PENDING) {
+                try {
+                    flush();
+                } catch (InterruptedException e) {
+                    // Keep the bytes for the next append or close.
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Hands over the bytes held back, waiting for room in the queue if there is none.
+         */
+        synchronized void flush() throws InterruptedException {
+            if (this.pendingLength > 0) {
+                queue.put(new Chunk(this, Arrays.copyOf(this.pending, this.pendingLength), false, null, null));
+                this.pending = new byte[0];
+                this.pendingLength = 0;
+            }
+            backlogged.remove(this);
+        }
+
+        /**
+         * Hands over anything still pending and closes the file once it has been written. This only waits if the
+         * queue is full, and never for the disk.
+         */
+        public synchronized void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            byte[] chunk = Arrays.copyOf(this.pending, this.pendingLength);
+            this.pending = new byte[0];
+            this.pendingLength = 0;
+            backlogged.remove(this);
+            try {
+                queue.put(new Chunk(this, chunk, true, null, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Chunk {
+        final Handle handle;
+        final byte[] bytes;
+        final boolean close;
+        final CountDownLatch done;
+        final Runnable task;
+
+        Chunk(Handle handle, byte[] bytes, boolean close, CountDownLatch done, Runnable task) {
+            this.handle = handle;
+            this.bytes = bytes;
+            this.close = close;
+            this.done = done;
+            this.task = task;
+        }
+    }
+
+    private void run() {
+        ArrayList<Chunk> batch = new ArrayList<>(MAX_BATCH);
+        IdentityHashMap<Handle, Boolean> written = new IdentityHashMap<>();
+        while (true) {
+            try {
+                batch.add(this.queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            this.queue.drainTo(batch, MAX_BATCH - 1);
+            FsyncPolicy policy = this.fsyncPolicy;
+
+            for (Chunk chunk : batch) {
+                if (chunk.handle != null) {
+                    write(chunk);
+                    written.put(chunk.handle, Boolean.TRUE);
+                } else if (chunk.task != null) {
+                    runTask(chunk.task);
+                }
+            }
+            for (Handle handle : written.keySet()) {
+                if (handle.channel != null && policy == FsyncPolicy.EveryBatch) {
+                    force(handle);
+                }
+            }
+            for (Chunk chunk : batch) {
+                if (chunk.close && chunk.handle.channel != null) {
+                    if (policy != FsyncPolicy.Never) force(chunk.handle);
+                    closeChannel(chunk.handle);
+                }
+                if (chunk.done != null) chunk.done.countDown();
+            }
+            batch.clear();
+            written.clear();
+        }
+    }
+
+    private void write(Chunk chunk) {
+        Handle handle = chunk.handle;
+        if (handle.failed || chunk.bytes.length == 0) {
+            return;
+        }
+        FlightEvents.RecordingIO event = new FlightEvents.RecordingIO();
+        event.begin();
+        try {
+            if (handle.channel == null) {
+                handle.channel = FileChannel.open(handle.file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(chunk.bytes);
+            while (buffer.hasRemaining()) {
+                handle.channel.write(buffer);
+            }
+            BoardMetrics.getDefault().recordBytesWritten(chunk.bytes.length);
+            if (event.shouldCommit()) {
+                event.path = handle.file.getPath();
+                event.operation = "write";
+                event.bytes = chunk.bytes.length;
+                event.commit();
+            }
+        } catch (IOException e) {
+            handle.failed = true;
+            e.printStackTrace();
+            closeChannel(handle);
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void force(Handle handle) {
+        try {
+            handle.channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void closeChannel(Handle handle) {
+        if (handle.channel == null) {
+            return;
+        }
+        try {
+            handle.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        handle.channel = null;
+    }
+}
@@ -0,0 +1,91 @@
+package SOS_Game.src;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads games recorded by {@link BinaryGameWriter} into the same moves, size and mode as {@link GameReader}.
+ */
+public class BinaryGameReader extends GameReader {
+    private String playerOneName;
+    private String playerTwoName;
+
+    public BinaryGameReader(File file) throws IOException {
+        FlightEvents.RecordingIO event = new FlightEvents.RecordingIO();
+        event.begin();
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            read(stream);
+        }
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.operation = "read";
+            event.bytes = file.length();
+            event.commit();
+        }
+    }
+
+    public BinaryGameReader(InputStream stream) throws IOException {
+        read(stream);
+    }
+
+    public String getPlayerOneName() {
+        return this.playerOneName;
+    }
+
+    public String getPlayerTwoName() {
+        return this.playerTwoName;
+    }
+
+    private void read(InputStream stream) throws IOException {
+        DataInputStream data = new DataInputStream(stream);
+        byte[] magic = new byte[BinaryGameWriter.MAGIC.length];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, BinaryGameWriter.MAGIC)) {
+            throw new IOException("Not a binary SOS recording.");
+        }
+        int version = data.readUnsignedByte();
+        if (version != BinaryGameWriter.VERSION) {
+            throw new IOException(String.format("Unsupported binary SOS recording version %s.", version));
+        }
+        this.boardSize = readVarInt(data, data.readUnsignedByte());
+        int mode = data.readUnsignedByte();
+        if (this.boardSize < Board.MIN_BOARD_SIZE || mode >= Board.GameMode.values().length) {
+            throw new IOException(String.format("Binary SOS recording is corrupt: board size %s, game mode %s.", this.boardSize, mode));
+        }
+        this.gameMode = Board.GameMode.values()[mode];
+        this.playerOneName = data.readUTF();
+        this.playerTwoName = data.readUTF();
+
+        Player.PlayStyle[] styles = Player.PlayStyle.values();
+        for (int first = data.read(); first != -1; first = data.read()) {
+            int value = readVarInt(data, first);
+            int style = value & ((1 << BinaryGameWriter.STYLE_BITS) - 1);
+            int tile = (value >>> BinaryGameWriter.STYLE_BITS) & 1;
+            int cell = value >>> (BinaryGameWriter.STYLE_BITS + 1);
+            this.moves.add(new Move(this.moves.size() % 2 == 0 ? "1" : "2", tile == 0 ? "S" : "O",
+                    styles[style].toString(), cell / this.boardSize, cell % this.boardSize));
+        }
+    }
+
+    /**
+     * Decodes a varint whose first byte has already been read.
+     */
+    private static int readVarInt(DataInputStream data, int first) throws IOException {
+        int value = first & 0x7F;
+        int shift = 7;
+        for (int next = first; (next & 0x80) != 0; shift += 7) {
+            next = data.read();
+            if (next == -1) {
+                throw new EOFException("Binary SOS recording ends inside a move.");
+            }
+            value |= (next & 0x7F) << shift;
+        }
+        return value;
+    }
+}
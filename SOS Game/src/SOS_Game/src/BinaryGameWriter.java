@@ -0,0 +1,207 @@
+package SOS_Game.src;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Records a game in the compact binary {@code .sosb} format.
+ * <p>
+ * The file starts with a header: the magic bytes {@code SOSB}, a format version, the board size as a varint, the game
+ * mode and the two players' names. Every move then follows as a single varint packing the cell index, the tile and
+ * the mover's play style; the mover is implied by the move's position, since turns alternate. On boards up to 45x45 a
+ * move takes two bytes at most, against roughly 25 for a line of the text format.
+ * <p>
+ * Like {@link GameWriter}, the recording's file is started by the first move and every later move is appended to it
+ * through the shared {@link AsyncFileAppender}.
+ *
+ * @see BinaryGameReader
+ */
+public class BinaryGameWriter implements GameRecorder {
+    static final byte[] MAGIC = {'S', 'O', 'S', 'B'};
+    static final int VERSION = 1;
+    static final int STYLE_BITS = 2;
+    static final String EXTENSION = "sosb";
+
+    private final Board board;
+    private File destination;
+    private final boolean timestamped;
+    private byte[] moves = new byte[64];
+    private int length;
+    /** The number of move bytes already handed to {@link #file}. */
+    private int appended;
+    private AsyncFileAppender.Handle file;
+    private boolean closed;
+
+    /**
+     * @param board The board being recorded, read for its size, mode and players when the header is written.
+     */
+    public BinaryGameWriter(Board board) {
+        this(board, null, true);
+    }
+
+    /**
+     * @param destination The file to append the recording to, or null to only keep the recording in memory.
+     */
+    public BinaryGameWriter(Board board, File destination) {
+        this(board, destination, false);
+    }
+
+    private BinaryGameWriter(Board board, File destination, boolean timestamped) {
+        assert (Player.PlayStyle.values().length <= 1 << STYLE_BITS);
+        this.board = board;
+        this.destination = destination;
+        this.timestamped = timestamped;
+    }
+
+    @Override
+    public void writeMove(int row, int column, Player player) {
+        int cell = row * this.board.getBoardSize() + column;
+        int tile = player.getTile().getValue() == BoardTile.TileValue.O ? 1 : 0;
+        writeVarInt(((cell << 1 | tile) << STYLE_BITS) | player.getStyle().ordinal());
+        if (this.file == null) {
+            start();
+        } else {
+            flush();
+        }
+    }
+
+    @Override
+    public void writeMessage(String message) {
+        // Messages are derived from the moves when the game is read back.
+    }
+
+    @Override
+    public void clearBuffer() {
+        this.length = 0;
+        this.appended = 0;
+    }
+
+    /**
+     * Writes the header and every move recorded so far to the given stream.
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream data = new DataOutputStream(stream);
+        writeHeader(data, this.board.getBoardSize(), this.board.getGameMode(), this.board.playerOne.getName(),
+                this.board.playerTwo.getName());
+        data.write(this.moves, 0, this.length);
+        data.flush();
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(this.length + 32);
+        try {
+            writeTo(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void writeToFile() {
+        if (this.file == null) {
+            start();
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (this.file != null) {
+            flush();
+            this.file.close();
+            this.file = null;
+        }
+        this.closed = true;
+    }
+
+    /**
+     * Opens the recording's file and hands it the header and the moves so far.
+     */
+    private void start() {
+        if (this.closed || (this.destination == null && !this.timestamped)) {
+            return;
+        }
+        if (this.destination == null) {
+            this.destination = GameWriter.recordingFile(GameWriter.timestampedName(EXTENSION));
+        }
+        this.file = AsyncFileAppender.getDefault().open(this.destination);
+        this.file.append(toByteArray());
+        this.appended = this.length;
+    }
+
+    private void flush() {
+        if (this.file != null && this.appended < this.length) {
+            this.file.append(this.moves, this.appended, this.length - this.appended);
+            this.appended = this.length;
+        }
+    }
+
+    /**
+     * Encodes a recording read in any format, such as a text recording, in the binary format. Recordings that carry no
+     * player names get the default ones.
+     */
+    public static byte[] encode(GameReader recording) {
+        String playerOne = "Player 1";
+        String playerTwo = "Player 2";
+        if (recording instanceof BinaryGameReader) {
+            playerOne = ((BinaryGameReader) recording).getPlayerOneName();
+            playerTwo = ((BinaryGameReader) recording).getPlayerTwoName();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 2 * recording.getMoves().size());
+        try {
+            DataOutputStream data = new DataOutputStream(bytes);
+            writeHeader(data, recording.getBoardSize(), modeOf(recording), playerOne, playerTwo);
+            for (GameReader.Move move : recording.getMoves()) {
+                int cell = move.row * recording.getBoardSize() + move.column;
+                int tile = "O".equals(move.tile) ? 1 : 0;
+                writeVarInt(data, ((cell << 1 | tile) << STYLE_BITS) | Player.PlayStyle.valueOf(move.style).ordinal());
+            }
+            data.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The recording's game mode. Text recordings only mention the mode when it was switched away from the
+     *         General mode boards start in.
+     */
+    static Board.GameMode modeOf(GameReader recording) {
+        return recording.getGameMode() == null ? Board.GameMode.General : recording.getGameMode();
+    }
+
+    private static void writeHeader(DataOutputStream data, int boardSize, Board.GameMode mode, String playerOne,
+                                    String playerTwo) throws IOException {
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        writeVarInt(data, boardSize);
+        data.writeByte(mode.ordinal());
+        data.writeUTF(playerOne);
+        data.writeUTF(playerTwo);
+    }
+
+    private void writeVarInt(int value) {
+        if (this.length + 5 > this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+        }
+        while ((value & ~0x7F) != 0) {
+            this.moves[this.length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.moves[this.length++] = (byte) value;
+    }
+
+    private static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+}
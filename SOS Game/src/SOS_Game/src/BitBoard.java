@@ -0,0 +1,301 @@
+package SOS_Game.src;
+
+import java.util.Arrays;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * Packed cell store for a square SOS board.
+ * <p>
+ * Cells are numbered row-major ({@code row * size + column}) and the S and O occupancy of every cell is kept in two
+ * primitive bitsets, so a small board fits in a handful of {@code long}s and copying it is a few array clones.
+ * SOS lines are found with shift-and-mask over whole words instead of visiting each cell.
+ * <p>
+ * Each bitset is split into fixed-size pages that are only allocated once a tile is placed in them, so very large
+ * boards cost memory in proportion to the regions that are actually played rather than to the square of the size.
+ * The last page only holds the words the board needs, so small boards stay small.
+ */
+public class BitBoard {
+    /** The four directions an SOS line can run in, see {@link #step(int)}. */
+    public static final int HORIZONTAL = 0;
+    public static final int VERTICAL = 1;
+    public static final int DIAGONAL = 2;
+    public static final int BACKWARDS_DIAGONAL = 3;
+    public static final int DIRECTIONS = 4;
+    /** The most lines a single tile can complete: an S can start or end a line in each direction. */
+    public static final int MAX_LINES_THROUGH = 2 * DIRECTIONS;
+
+    /** Words per page: 512 words hold 32768 cells in 4 KiB per bitset. */
+    private static final int PAGE_SHIFT = 9;
+    private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_WORDS - 1;
+
+    private final int size;
+    private final int words;
+    private final long[][] s;
+    private final long[][] o;
+
+    public BitBoard(int size) {
+        this.size = size;
+        this.words = (int) (((long) size * size + 63) >>> 6);
+        int pages = (this.words + PAGE_WORDS - 1) >>> PAGE_SHIFT;
+        this.s = new long[pages][];
+        this.o = new long[pages][];
+    }
+
+    private BitBoard(BitBoard other) {
+        this.size = other.size;
+        this.words = other.words;
+        this.s = copyPages(other.s);
+        this.o = copyPages(other.o);
+    }
+
+    private static long[][] copyPages(long[][] plane) {
+        long[][] copy = new long[plane.length][];
+        for (int i = 0; i < plane.length; i++) {
+            if (plane[i] != null) copy[i] = plane[i].clone();
+        }
+        return copy;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int index(int row, int column) {
+        return row * this.size + column;
+    }
+
+    public TileValue get(int row, int column) {
+        return get(index(row, column));
+    }
+
+    public TileValue get(int cell) {
+        if (isS(cell)) return TileValue.S;
+        if (isO(cell)) return TileValue.O;
+        return TileValue.None;
+    }
+
+    public boolean isS(int cell) {
+        return (word(this.s, cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    public boolean isO(int cell) {
+        return (word(this.o, cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((word(this.s, cell >>> 6) | word(this.o, cell >>> 6)) & (1L << cell)) == 0;
+    }
+
+    /**
+     * Sets the given cell to the given value, clearing whatever was there before.
+     */
+    public void set(int cell, TileValue value) {
+        int word = cell >>> 6;
+        long bit = 1L << cell;
+        long[] sPage = this.s[word >>> PAGE_SHIFT];
+        long[] oPage = this.o[word >>> PAGE_SHIFT];
+        if (sPage != null) sPage[word & PAGE_MASK] &= ~bit;
+        if (oPage != null) oPage[word & PAGE_MASK] &= ~bit;
+        if (value == TileValue.S) page(this.s, word)[word & PAGE_MASK] |= bit;
+        else if (value == TileValue.O) page(this.o, word)[word & PAGE_MASK] |= bit;
+    }
+
+    /**
+     * Empties the board and releases every allocated page.
+     */
+    public void clear() {
+        Arrays.fill(this.s, null);
+        Arrays.fill(this.o, null);
+    }
+
+    /**
+     * @return The number of cells the allocated pages can hold, a measure of how much of the board is in memory.
+     */
+    public long allocatedCells() {
+        long words = 0;
+        for (int i = 0; i < this.s.length; i++) {
+            if (this.s[i] != null) words += this.s[i].length;
+            if (this.o[i] != null) words += this.o[i].length;
+        }
+        return words * 64;
+    }
+
+    private static long word(long[][] plane, int word) {
+        long[] page = plane[word >>> PAGE_SHIFT];
+        return page == null ? 0L : page[word & PAGE_MASK];
+    }
+
+    private long[] page(long[][] plane, int word) {
+        long[] page = plane[word >>> PAGE_SHIFT];
+        if (page == null) {
+            page = new long[Math.min(PAGE_WORDS, this.words - (word & ~PAGE_MASK))];
+            plane[word >>> PAGE_SHIFT] = page;
+        }
+        return page;
+    }
+
+    /**
+     * @return The number of cells holding either an S or an O.
+     */
+    public int count() {
+        int count = 0;
+        for (int page = 0; page < this.s.length; page++) {
+            if (this.s[page] == null && this.o[page] == null) {
+                continue;
+            }
+            int length = Math.min(PAGE_WORDS, this.words - page * PAGE_WORDS);
+            for (int i = 0; i < length; i++) {
+                long sWord = this.s[page] == null ? 0L : this.s[page][i];
+                long oWord = this.o[page] == null ? 0L : this.o[page][i];
+                count += Long.bitCount(sWord | oWord);
+            }
+        }
+        return count;
+    }
+
+    public BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    /**
+     * @return The cell offset between consecutive tiles of a line in the given direction.
+     */
+    public int step(int direction) {
+        switch (direction) {
+            case HORIZONTAL: return 1;
+            case VERTICAL: return this.size;
+            case DIAGONAL: return this.size + 1;
+            default: return this.size - 1;
+        }
+    }
+
+    /**
+     * @return The row offset between consecutive tiles of a line in the given direction.
+     */
+    public static int rowStep(int direction) {
+        return direction == HORIZONTAL ? 0 : 1;
+    }
+
+    /**
+     * @return The column offset between consecutive tiles of a line in the given direction.
+     */
+    public static int columnStep(int direction) {
+        switch (direction) {
+            case VERTICAL: return 0;
+            case BACKWARDS_DIAGONAL: return -1;
+            default: return 1;
+        }
+    }
+
+    /**
+     * Checks for an S-O-S line starting at the given (row, column) index and running in the given direction.
+     *
+     * @return True if all three tiles of the line are on the board and spell SOS, false otherwise.
+     */
+    public boolean isLine(int row, int column, int direction) {
+        int lastRow = row + 2 * rowStep(direction);
+        int lastColumn = column + 2 * columnStep(direction);
+        if (row < 0 || lastRow >= this.size || Math.min(column, lastColumn) < 0 || Math.max(column, lastColumn) >= this.size) {
+            return false;
+        }
+        int cell = index(row, column);
+        int step = step(direction);
+        return isS(cell) && isO(cell + step) && isS(cell + 2 * step);
+    }
+
+    /**
+     * Finds the SOS lines running through the tile at (row, column). An S can start or end a line in each of the four
+     * directions and an O can only sit in the middle of one, so at most {@link #MAX_LINES_THROUGH} lines are checked.
+     *
+     * @param keys If not null, receives the {@link #lineKey(int, int)} of each line found.
+     * @return The number of lines found.
+     */
+    public int linesThrough(int row, int column, int[] keys) {
+        int cell = index(row, column);
+        if (isEmpty(cell)) {
+            return 0;
+        }
+        boolean middle = isO(cell);
+        int found = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            int rowStep = rowStep(direction);
+            int columnStep = columnStep(direction);
+            for (int position = middle ? 1 : 0; position <= 2; position += 2) {
+                int startRow = row - position * rowStep;
+                int startColumn = column - position * columnStep;
+                if (isLine(startRow, startColumn, direction)) {
+                    if (keys != null) keys[found] = lineKey(index(startRow, startColumn), direction);
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Packs a line into a single non-negative int identifying its first cell and direction.
+     */
+    public static int lineKey(int startCell, int direction) {
+        return startCell * DIRECTIONS + direction;
+    }
+
+    public static int lineStart(int key) {
+        return key / DIRECTIONS;
+    }
+
+    public static int lineDirection(int key) {
+        return key % DIRECTIONS;
+    }
+
+    /**
+     * Finds every S-O-S line on the board running in the given direction. This walks the whole board, so it is meant for
+     * analysis of finished positions; moves are scored incrementally instead.
+     *
+     * @param direction One of {@link #HORIZONTAL}, {@link #VERTICAL}, {@link #DIAGONAL} or {@link #BACKWARDS_DIAGONAL}.
+     * @return A bitset with one bit set for the first cell of each line found.
+     */
+    public long[] findLines(int direction) {
+        int step = step(direction);
+        long[] middle = shiftDown(this.o, step);
+        long[] last = shiftDown(this.s, 2 * step);
+        long[] starts = startMask(direction);
+        for (int i = 0; i < this.words; i++) {
+            starts[i] &= word(this.s, i) & middle[i] & last[i];
+        }
+        return starts;
+    }
+
+    /**
+     * Returns a copy of {@code bits} in which bit {@code i} holds the old bit {@code i + distance}.
+     */
+    private long[] shiftDown(long[][] bits, int distance) {
+        long[] shifted = new long[this.words];
+        int wordShift = distance >>> 6;
+        int bitShift = distance & 63;
+        for (int i = 0; i + wordShift < this.words; i++) {
+            long low = word(bits, i + wordShift) >>> bitShift;
+            long high = (bitShift != 0 && i + wordShift + 1 < this.words) ? word(bits, i + wordShift + 1) << (64 - bitShift) : 0L;
+            shifted[i] = low | high;
+        }
+        return shifted;
+    }
+
+    /**
+     * @return A bitset of every cell from which a full three tile line fits on the board in the given direction.
+     */
+    private long[] startMask(int direction) {
+        long[] mask = new long[this.words];
+        int lastRow = (direction == HORIZONTAL) ? this.size - 1 : this.size - 3;
+        int firstColumn = (direction == BACKWARDS_DIAGONAL) ? 2 : 0;
+        int lastColumn = (direction == HORIZONTAL || direction == DIAGONAL) ? this.size - 3 : this.size - 1;
+        for (int row = 0; row <= lastRow; row++) {
+            for (int col = firstColumn; col <= lastColumn; col++) {
+                int cell = index(row, col);
+                mask[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return mask;
+    }
+}
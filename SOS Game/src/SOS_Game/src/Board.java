@@ -2,38 +2,69 @@ package SOS_Game.src;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.Random;
-import java.util.TreeSet;
 
 import SOS_Game.src.BoardTile.TileValue;
 
 
 
 public class Board {
-    private static final Random RANDOM = new Random();
     public static final int MIN_BOARD_SIZE = 3;
-    public static final int MAX_BOARD_SIZE = 9;
+    public static final int MAX_BOARD_SIZE = 10_000;
 
     private int boardSize = MIN_BOARD_SIZE;
     public final Player playerOne = new Player(TileValue.S, "Player 1");
     public final Player playerTwo = new Player(TileValue.O, "Player 2");
     public boolean recordGame = false;
-    private GameWriter writer;
+    private GameRecorder writer;
+    private RecordingFormat recordingFormat = RecordingFormat.Text;
     private GameMode gameMode = GameMode.General;
-    private BoardTile[][] grid;
-    private TreeSet<Match> wins;
+    private BitBoard cells;
+    private EmptyCells emptyCells;
+    private ThreatIndex threats;
+    private final IntSet wins = new IntSet();
+    private final int[] lineBuffer = new int[BitBoard.MAX_LINES_THROUGH];
     private Player turn = playerOne;
     private State gameState;
+    private long hash;
+    /** Set on boards that replay recordings, whose games were counted when they were played live. */
+    private boolean replay;
+    private final Random random;
+    private final EnumMap<Player.PlayStyle, Engine> engines = new EnumMap<>(Player.PlayStyle.class);
+
+    /*
+     * Undo history, one entry per move in parallel arrays: the move packed as by Position.move, whether Player 2 made
+     * it, how many lines it completed and the game state before it. Entries from historySize up to historyTop are the
+     * moves that can be redone. The keys of the lines each move completed are stacked in winHistory.
+     */
+    private int[] historyMoves = new int[64];
+    private boolean[] historyPlayerTwo = new boolean[64];
+    private int[] historyGains = new int[64];
+    private State[] historyStates = new State[64];
+    private int historySize;
+    private int historyTop;
+    private int[] winHistory = new int[64];
+    private int winHistorySize;
 
     public Board() {
-        grid = new BoardTile[MIN_BOARD_SIZE][MIN_BOARD_SIZE];
-        this.writer = new GameWriter();
-        initBoard();
+        this(MIN_BOARD_SIZE);
     }
 
     public Board(int boardSize) {
+        this(boardSize, new Random());
+    }
+
+    /**
+     * @param random The source of the Computer play style's random choices, so that headless games can be seeded and
+     *               need not share one generator across threads.
+     */
+    public Board(int boardSize, Random random) {
+        this.random = random;
         setBoardSize(boardSize);
-        grid = new BoardTile[getBoardSize()][getBoardSize()];
+        cells = new BitBoard(getBoardSize());
+        emptyCells = new EmptyCells(getBoardSize() * getBoardSize());
         this.writer = new GameWriter();
         initBoard();
     }
@@ -42,29 +73,66 @@ public class Board {
         this.recordGame = !this.recordGame;
     }
 
+    /**
+     * Replaces the board contents with the given grid, starting a new game on it: scores, registered lines, the turn
+     * and the game state are reset as by {@link #initBoard()}. Null tiles are treated as empty.
+     */
     public void setGrid(BoardTile[][] grid) {
         assert (grid.length >= MIN_BOARD_SIZE && grid.length <= MAX_BOARD_SIZE);
-        this.grid = grid;
         this.setBoardSize(grid.length);
+        this.cells = new BitBoard(grid.length);
+        this.emptyCells = new EmptyCells(grid.length * grid.length);
+        resetGame();
+        for (int row = 0; row < grid.length; row++) {
+            for (int col = 0; col < grid.length; col++) {
+                if (grid[row][col] != null && grid[row][col].getValue() != TileValue.None) {
+                    place(this.cells.index(row, col), grid[row][col].getValue());
+                }
+            }
+        }
     }
 
     public void initBoard() {
+        this.recordGame = false;
+        this.cells.clear();
+        this.emptyCells.reset();
+        resetGame();
+
+        this.writer.close();
+        switch (this.recordingFormat) {
+            case Binary: this.writer = new BinaryGameWriter(this); break;
+            case Archive: this.writer = new ArchiveGameWriter(this); break;
+            default: this.writer = new GameWriter();
+        }
+        this.writer.writeMessage(String.format("Board has been initialized at size %s.\n", this.getBoardSize()));
+    }
+
+    /**
+     * Clears the scores, registered lines, hash, undo history, turn and replay mark for a new game on the current
+     * cells, which must be empty.
+     */
+    private void resetGame() {
         this.playerOne.resetPoints();
         this.playerTwo.resetPoints();
-        this.recordGame = false;
-        gameState = State.INIT;
-        turn = playerOne;
-        this.wins = new TreeSet<>();
+        this.gameState = State.INIT;
+        this.turn = playerOne;
+        this.wins.clear();
+        this.threats = new ThreatIndex(this.cells, this.emptyCells);
+        this.hash = 0L;
+        // A new game is played live, even on a board that replayed a recording before.
+        this.replay = false;
+        clearHistory();
+    }
 
-        for (int row = 0; row < getBoardSize(); row++) {
-            for (int col = 0; col < getBoardSize(); col++) {
-                grid[row][col] = new BoardTile(TileValue.None);
-            }
-        }
+    public RecordingFormat getRecordingFormat() {
+        return this.recordingFormat;
+    }
 
-        this.writer.clearBuffer();
-        this.writer = new GameWriter();
-        this.writer.writeMessage(String.format("Board has been initialized at size %s.\n", this.getBoardSize()));
+    /**
+     * Selects the file format recordings are written in, starting from the next call to {@link #initBoard()}.
+     */
+    public void setRecordingFormat(RecordingFormat format) {
+        this.recordingFormat = format;
     }
 
     public int getBoardSize() {
@@ -76,6 +144,13 @@ public class Board {
         this.boardSize = boardSize;
     }
 
+    /**
+     * @return The Zobrist hash of the tiles on the board.
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
     public State getGameState() {
         return this.gameState;
     }
@@ -90,12 +165,8 @@ public class Board {
 
     public void setGameMode(GameMode mode) {
         // The game mode should not be changed if any tiles have been set.
-        for (BoardTile[] row : grid) {
-            for (BoardTile tile : row) {
-                if (tile.getValue() != TileValue.None) {
-                    return;
-                }
-            }
+        if (this.emptyCells.size() != this.emptyCells.capacity()) {
+            return;
         }
         this.gameMode = mode;
         this.writer.writeMessage(String.format("Game mode has been switched to %s.\n", this.gameMode));
@@ -107,21 +178,36 @@ public class Board {
                 column >= 0 && column < this.getBoardSize()) :
                 String.format("getTile(%s, %s) out of bounds for board size %s.", row, column, this.getBoardSize());
 
-        return grid[row][column];
+        return new BoardTile(cells.get(row, column));
+    }
+
+    /**
+     * The value of a cell, without the tile {@link #getTile(int, int)} allocates, for callers that read every cell
+     * often, such as the board's rendering.
+     */
+    TileValue getTileValue(int row, int column) {
+        return this.cells.get(row, column);
     }
 
+    /**
+     * @return The (row, column) index of every empty tile, in no particular order.
+     */
     public ArrayList<Pair> getEmptyTiles() {
-        ArrayList<Pair> emptyTiles = new ArrayList<>();
-        for (int i = 0; i < this.getBoardSize(); i++) {
-            for (int j = 0; j < this.getBoardSize(); j++) {
-                if (this.grid[i][j].getValue() == TileValue.None) {
-                    emptyTiles.add(new Pair(i, j));
-                }
-            }
+        ArrayList<Pair> emptyTiles = new ArrayList<>(this.emptyCells.size());
+        for (int slot = 0; slot < this.emptyCells.size(); slot++) {
+            int cell = this.emptyCells.get(slot);
+            emptyTiles.add(new Pair(cell / getBoardSize(), cell % getBoardSize()));
         }
         return emptyTiles;
     }
 
+    /**
+     * @return The number of empty tiles left on the board.
+     */
+    public int getEmptyTileCount() {
+        return this.emptyCells.size();
+    }
+
   
     public Player getTurn() {
         return turn;
@@ -142,72 +228,289 @@ public class Board {
                 0 <= column && column < this.getBoardSize())
                 : String.format("makeMove(%s, %s) out of bounds for board size %s.", row, column, this.getBoardSize());
 
-        if (grid[row][column].getValue() == TileValue.None) {
-            grid[row][column] = (this.turn == playerOne) ? playerOne.getTile() : playerTwo.getTile();
-
-            if (this.recordGame) this.writer.writeMove(row, column, turn);
-
-            updateGameState();
-            this.turn = (this.turn == playerOne) ? playerTwo : playerOne;
-        }
+        playMove(row, column);
         if (this.boardHasWinner()) {
             return;
         }
 
-        if (turn.getStyle() == Player.PlayStyle.Computer
+        if (turn.getStyle() != Player.PlayStyle.Human
                 && !isFull()) {
             makeComputerMove();
         }
     }
 
     /**
-     * Places a tile in a random location on behalf of an active player who has selected the Computer play style.
+     * Places a tile from the active player at the given (row, column) index, like {@link #makeMove(int, int)}, but
+     * leaves a computer player who is to move next to the caller, e.g. a {@link ComputerMoveScheduler}.
      *
-     * @see sprint_5.src.Player.PlayStyle
+     * @return False if the tile was already taken, in which case nothing changes.
+     */
+    public boolean playMove(int row, int column) {
+        assert (0 <= row && row < this.getBoardSize() &&
+                0 <= column && column < this.getBoardSize())
+                : String.format("playMove(%s, %s) out of bounds for board size %s.", row, column, this.getBoardSize());
+
+        int cell = cells.index(row, column);
+        if (!cells.isEmpty(cell)) {
+            return false;
+        }
+        play(cell, this.turn.getTile().getValue(), this.replay);
+        this.historyTop = this.historySize;
+        this.turn = (this.turn == playerOne) ? playerTwo : playerOne;
+        return true;
+    }
+
+    /**
+     * Places a tile on behalf of an active player who has selected a computer play style: greedily from the board's
+     * {@link ThreatIndex} for the Computer style, or the move chosen by the style's {@link Engine} otherwise.
+     *
+     * @see SOS_Game.src.Player.PlayStyle
      */
     public void makeComputerMove() {
-        if (this.boardHasWinner()) {
-            return;
+        do {
+            if (this.boardHasWinner() || this.isFull()) {
+                return;
+            }
+
+            FlightEvents.ComputerMove event = new FlightEvents.ComputerMove();
+            event.begin();
+            long start = System.nanoTime();
+            int move;
+            if (turn.getStyle() == Player.PlayStyle.Search || turn.getStyle() == Player.PlayStyle.MonteCarlo) {
+                move = this.engines.computeIfAbsent(turn.getStyle(), Board::createEngine).bestMove(toPosition());
+            } else {
+                move = this.threats.greedyMove(this.emptyCells, this.random);
+            }
+            int cell = Position.moveCell(move);
+            TileValue tile = Position.moveTile(move);
+            BoardMetrics.getDefault().recordComputerMove(System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.style = turn.getStyle().toString();
+                event.boardSize = getBoardSize();
+                event.mode = this.gameMode.toString();
+                event.moveIndex = this.historySize;
+                event.commit();
+            }
+            turn.setTile(tile);
+            play(cell, tile, this.replay);
+            this.historyTop = this.historySize;
+
+            if (this.isFull()) {
+                return;
+            }
+
+            // Keep playing, in a loop rather than by recursion, while the other player is a computer as well.
+            turn = (turn == playerOne) ? playerTwo : playerOne;
+        } while (turn.getStyle() != Player.PlayStyle.Human);
+    }
+
+    /**
+     * Places the turn's tile, records it, scores it and pushes it onto the undo history.
+     *
+     * @param replayed True if the move has been played before, by a redo or a replay, so that a game it finishes is not
+     *                 counted again.
+     */
+    private void play(int cell, TileValue tile, boolean replayed) {
+        FlightEvents.Move event = new FlightEvents.Move();
+        event.begin();
+        long start = System.nanoTime();
+        int row = cell / getBoardSize();
+        int column = cell % getBoardSize();
+        State before = this.gameState;
+        int pointsBefore = this.turn.getPoints();
+
+        place(cell, tile);
+        if (this.recordGame) this.writer.writeMove(row, column, turn);
+        updateGameState(row, column);
+
+        if (this.historySize == this.historyMoves.length) {
+            int capacity = 2 * this.historySize;
+            this.historyMoves = Arrays.copyOf(this.historyMoves, capacity);
+            this.historyPlayerTwo = Arrays.copyOf(this.historyPlayerTwo, capacity);
+            this.historyGains = Arrays.copyOf(this.historyGains, capacity);
+            this.historyStates = Arrays.copyOf(this.historyStates, capacity);
         }
+        this.historyMoves[this.historySize] = Position.move(cell, tile);
+        this.historyPlayerTwo[this.historySize] = this.turn == playerTwo;
+        this.historyGains[this.historySize] = this.turn.getPoints() - pointsBefore;
+        this.historyStates[this.historySize] = before;
+        this.historySize++;
+
+        BoardMetrics metrics = BoardMetrics.getDefault();
+        if (!replayed && isOver(this.gameState) && !isOver(before)) {
+            metrics.recordGameOver(this.gameState);
+        }
+        metrics.recordMove(System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.boardSize = getBoardSize();
+            event.mode = this.gameMode.toString();
+            event.moveIndex = this.historySize;
+            event.row = row;
+            event.column = column;
+            event.tile = tile.toString();
+            event.pointsGained = this.historyGains[this.historySize - 1];
+            event.commit();
+        }
+    }
 
-        ArrayList<Pair> emptyTiles = getEmptyTiles();
-        Pair choice = emptyTiles.get(RANDOM.nextInt(emptyTiles.size()));
-        BoardTile tile = new BoardTile(TileValue.values()[RANDOM.nextInt(2)]);
+    private static boolean isOver(State state) {
+        return state == State.DRAW || state == State.PLAYER_ONE_WON || state == State.PLAYER_TWO_WON;
+    }
 
-        grid[choice.first][choice.second] = tile;
-        turn.setTile(tile.getValue());
-        if (this.recordGame) this.writer.writeMove(choice.first, choice.second, turn);
-        updateGameState();
+    /**
+     * @return True if there is a move to undo. Recordings are append-only, so nothing can be undone while the game is
+     *         being recorded.
+     */
+    public boolean canUndo() {
+        return this.historySize > 0 && !this.recordGame;
+    }
 
-        if (emptyTiles.size() <= 1) {
-            return;
+    /**
+     * @return True if there is an undone move to play again.
+     */
+    public boolean canRedo() {
+        return this.historySize < this.historyTop && !this.recordGame;
+    }
+
+    /**
+     * Takes back the last move in constant time: its tile, the lines it completed, its points, the turn and the game
+     * state are restored from the undo history rather than recomputed.
+     *
+     * @return False if there was nothing to undo.
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        int entry = --this.historySize;
+        int cell = Position.moveCell(this.historyMoves[entry]);
+        TileValue tile = Position.moveTile(this.historyMoves[entry]);
+        Player mover = this.historyPlayerTwo[entry] ? playerTwo : playerOne;
+        int gained = this.historyGains[entry];
+
+        for (int i = 0; i < gained; i++) {
+            this.wins.remove(this.winHistory[--this.winHistorySize]);
         }
+        mover.setPoints(mover.getPoints() - gained);
+        this.cells.set(cell, TileValue.None);
+        this.emptyCells.add(cell);
+        this.threats.tileRemoved(cell, tile);
+        this.hash ^= Zobrist.key(cell, tile);
+        this.turn = mover;
+        this.gameState = this.historyStates[entry];
+        return true;
+    }
 
-        turn = (turn == playerOne) ? playerTwo : playerOne;
-        if (turn.getStyle() == Player.PlayStyle.Computer) {
-            makeComputerMove();
+    /**
+     * Plays the last undone move again. Making any other move discards the moves that could have been redone.
+     *
+     * @return False if there was nothing to redo.
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
         }
+        int move = this.historyMoves[this.historySize];
+        this.turn = this.historyPlayerTwo[this.historySize] ? playerTwo : playerOne;
+        this.turn.setTile(Position.moveTile(move));
+        play(Position.moveCell(move), Position.moveTile(move), true);
+        this.turn = (this.turn == playerOne) ? playerTwo : playerOne;
+        return true;
+    }
+
+    /**
+     * Marks the board as replaying a recording, so that the games it plays through are not counted as finished again.
+     * The mark lasts until a new game starts on the board.
+     */
+    void setReplay(boolean replay) {
+        this.replay = replay;
+    }
+
+    private void clearHistory() {
+        this.historySize = 0;
+        this.historyTop = 0;
+        this.winHistorySize = 0;
     }
 
     /**
      * @return True if the board is full, false otherwise.
      */
     public boolean isFull() {
-        for (int i = 0; i < this.getBoardSize(); i++) {
-            for (int j = 0; j < this.getBoardSize(); j++) {
-                if (this.grid[i][j].getValue() == BoardTile.TileValue.None) {
-                    return false;
-                }
-            }
+        return this.emptyCells.size() == 0;
+    }
+
+    private static Engine createEngine(Player.PlayStyle style) {
+        switch (style) {
+            case Search: return new SearchEngine();
+            // Boards come and go with every game, so they share one pool of Monte Carlo workers.
+            case MonteCarlo: return MonteCarloEngine.shared();
+            default: throw new IllegalArgumentException(String.format("No engine for play style %s.", style));
         }
-        return true;
     }
 
     /**
-     * Given the selected game mode, register any newly completed wins update the game state accordingly.
+     * @return A copy of the current game state for search and playouts, independent of this board.
      */
-    private void updateGameState() {
-        registerWin();
+    public Position toPosition() {
+        return new Position(this.gameMode, this.cells.copy(), this.emptyCells.copy(), this.playerOne.getPoints(),
+                this.playerTwo.getPoints(), this.turn == playerOne ? Position.PLAYER_ONE : Position.PLAYER_TWO, this.hash);
+    }
+
+    /**
+     * Takes an immutable copy of the game for other threads to read. It must be called from the thread playing the
+     * game, but the snapshot can then be shared freely. Only the packed tiles are copied, so this takes time in
+     * proportion to the number of cells divided by 64.
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(this.cells.copy(), this.gameMode, this.gameState, this.playerOne.getPoints(),
+                this.playerTwo.getPoints(), this.turn == playerOne ? Position.PLAYER_ONE : Position.PLAYER_TWO,
+                this.hash, this.emptyCells.size(), this.wins.toArray());
+    }
+
+    /**
+     * @return A copy of the game state that {@link #restore(Keyframe)} can return this board to.
+     */
+    Keyframe keyframe() {
+        return new Keyframe(this.cells.copy(), this.emptyCells.copy(), this.wins.toArray(), this.hash,
+                this.playerOne.getPoints(), this.playerTwo.getPoints(), this.turn == playerOne, this.gameState);
+    }
+
+    /**
+     * Returns the board to a state captured by {@link #keyframe()} on a board of the same size and mode. The keyframe
+     * is copied, so it can be restored again later.
+     */
+    void restore(Keyframe keyframe) {
+        assert (keyframe.cells.size() == getBoardSize());
+        this.cells = keyframe.cells.copy();
+        this.emptyCells = keyframe.emptyCells.copy();
+        this.threats = new ThreatIndex(this.cells, this.emptyCells);
+        this.wins.clear();
+        for (int key : keyframe.wins) {
+            this.wins.add(key);
+        }
+        this.hash = keyframe.hash;
+        this.playerOne.setPoints(keyframe.playerOnePoints);
+        this.playerTwo.setPoints(keyframe.playerTwoPoints);
+        this.turn = keyframe.playerOneToMove ? playerOne : playerTwo;
+        this.gameState = keyframe.state;
+        clearHistory();
+    }
+
+    private void place(int cell, TileValue value) {
+        this.cells.set(cell, value);
+        this.emptyCells.remove(cell);
+        this.threats.tilePlaced(cell);
+        this.hash ^= Zobrist.key(cell, value);
+    }
+
+    /**
+     * Given the selected game mode, register any wins completed by the tile just placed at (row, column) and update
+     * the game state accordingly.
+     */
+    private void updateGameState(int row, int column) {
+        long start = System.nanoTime();
+        registerWins(row, column);
+        BoardMetrics.getDefault().recordWinDetection(System.nanoTime() - start);
         switch (this.getGameMode()) {
             case Simple:
                 if (hasWonSimple()) {
@@ -239,65 +542,49 @@ public class Board {
         }
     }
 
-    private void addWin(Match win) {
-        if (!this.wins.contains(win)) {
-            this.wins.add(win);
+    private void addWin(int key) {
+        if (this.wins.add(key)) {
             turn.incrementPoints();
+            if (this.winHistorySize == this.winHistory.length) {
+                this.winHistory = Arrays.copyOf(this.winHistory, 2 * this.winHistorySize);
+            }
+            this.winHistory[this.winHistorySize++] = key;
         }
     }
 
-    private boolean checkHorizontalWin(int i, int j) {
-        assert (i <= this.getBoardSize() && j <= this.getBoardSize() - 2);
-        return this.grid[i][j].getValue() == TileValue.S && this.grid[i][j + 1].getValue() == TileValue.O
-                && this.grid[i][j + 2].getValue() == TileValue.S;
-    }
-
-    private boolean checkDiagonalWin(int i, int j) {
-        assert (i <= this.getBoardSize() - 2 && j <= this.getBoardSize() - 2);
-        return this.grid[i][j].getValue() == TileValue.S && this.grid[i + 1][j + 1].getValue() == TileValue.O
-                && this.grid[i + 2][j + 2].getValue() == TileValue.S;
-    }
-
-    private boolean checkBackwardsDiagonalWin(int i, int j) {
-        assert (i <= this.getBoardSize() - 2 && j >= 2 && j <= this.getBoardSize());
-        return this.grid[i][j].getValue() == TileValue.S && this.grid[i + 1][j - 1].getValue() == TileValue.O
-                && this.grid[i + 2][j - 2].getValue() == TileValue.S;
+    /**
+     * @return Every SOS line registered so far, in no particular order.
+     */
+    public ArrayList<Match> getWins() {
+        ArrayList<Match> matches = new ArrayList<>();
+        for (int key : this.wins.toArray()) {
+            matches.add(lineMatch(key, getBoardSize()));
+        }
+        return matches;
     }
 
-    private boolean checkVerticalWin(int i, int j) {
-        assert (i <= this.getBoardSize() - 2 && j <= this.getBoardSize());
-        return this.grid[i][j].getValue() == TileValue.S && this.grid[i + 1][j].getValue() == TileValue.O
-                && this.grid[i + 2][j].getValue() == TileValue.S;
+    /**
+     * @return The three cells of the line with the given {@link BitBoard#lineKey key}.
+     */
+    static Match lineMatch(int key, int boardSize) {
+        int start = BitBoard.lineStart(key);
+        int direction = BitBoard.lineDirection(key);
+        int row = start / boardSize;
+        int col = start % boardSize;
+        int rowStep = BitBoard.rowStep(direction);
+        int columnStep = BitBoard.columnStep(direction);
+        return new Match(new Pair(row, col),
+                new Pair(row + rowStep, col + columnStep),
+                new Pair(row + 2 * rowStep, col + 2 * columnStep));
     }
 
-    private void registerWin() {
-        for (int row = 0; row < getBoardSize(); row++) {
-            for (int col = 0; col < getBoardSize(); col++) {
-                if (col >= 2 && row < getBoardSize() - 2) {
-                    if (checkBackwardsDiagonalWin(row, col)) {
-                        Match win = new Match(new Pair(row, col), new Pair(row + 1, col - 1), new Pair(row + 2, col - 2));
-                        addWin(win);
-                    }
-                }
-                if (col < getBoardSize() - 2 && row < getBoardSize() - 2) {
-                    if (checkDiagonalWin(row, col)) {
-                        Match win = new Match(new Pair(row, col), new Pair(row + 1, col + 1), new Pair(row + 2, col + 2));
-                        addWin(win);
-                    }
-                }
-                if (col < getBoardSize() - 2) {
-                    if (checkHorizontalWin(row, col)) {
-                        Match win = new Match(new Pair(row, col), new Pair(row, col + 1), new Pair(row, col + 2));
-                        addWin(win);
-                    }
-                }
-                if (row < getBoardSize() - 2) {
-                    if (checkVerticalWin(row, col)) {
-                        Match win = new Match(new Pair(row, col), new Pair(row + 1, col), new Pair(row + 2, col));
-                        addWin(win);
-                    }
-                }
-            }
+    /**
+     * Registers the SOS lines completed by the tile just placed at (row, column), crediting the active player with each.
+     */
+    private void registerWins(int row, int column) {
+        int found = this.cells.linesThrough(row, column, this.lineBuffer);
+        for (int i = 0; i < found; i++) {
+            addWin(this.lineBuffer[i]);
         }
     }
 
@@ -313,6 +600,32 @@ public class Board {
         return playerOne.getPoints() == 1 || playerTwo.getPoints() == 1;
     }
 
+    /**
+     * Game state captured by {@link #keyframe()}.
+     */
+    static final class Keyframe {
+        final BitBoard cells;
+        final EmptyCells emptyCells;
+        final int[] wins;
+        final long hash;
+        final int playerOnePoints;
+        final int playerTwoPoints;
+        final boolean playerOneToMove;
+        final State state;
+
+        Keyframe(BitBoard cells, EmptyCells emptyCells, int[] wins, long hash, int playerOnePoints,
+                 int playerTwoPoints, boolean playerOneToMove, State state) {
+            this.cells = cells;
+            this.emptyCells = emptyCells;
+            this.wins = wins;
+            this.hash = hash;
+            this.playerOnePoints = playerOnePoints;
+            this.playerTwoPoints = playerTwoPoints;
+            this.playerOneToMove = playerOneToMove;
+            this.state = state;
+        }
+    }
+
     public enum State {
         INIT, PLAYING, DRAW, PLAYER_ONE_WON, PLAYER_TWO_WON
     }
@@ -320,4 +633,8 @@ public class Board {
     public enum GameMode {
         Simple, General
     }
+
+    public enum RecordingFormat {
+        Text, Binary, Archive
+    }
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package SOS_Game.src;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the engine's hot paths, cheap enough to stay on in production.
+ * <p>
+ * Every board, server, recorder and replay in the process records into {@link #getDefault()}. Counters are
+ * {@link LongAdder}s and latencies go to {@link LatencyRecorder}s, so recording never locks and threads on different
+ * cores seldom contend. The totals only grow; {@link #sample()} ends an interval, turning what was recorded since the
+ * last one into an {@link Interval} of rates and histograms, which is handed to every listener added with
+ * {@link #addListener(Consumer)}. {@link #register()} publishes the metrics over JMX and samples every
+ * {@value #INTERVAL_MS} ms.
+ */
+public class BoardMetrics implements BoardMetricsMXBean {
+    public static final String OBJECT_NAME = "SOS_Game:type=BoardMetrics";
+    public static final long INTERVAL_MS = 10_000;
+
+    private static final BoardMetrics DEFAULT = new BoardMetrics();
+    private static ScheduledExecutorService sampler;
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder computerMoves = new LongAdder();
+    private final LongAdder recordingBytes = new LongAdder();
+    private final LongAdder replayMoves = new LongAdder();
+    private final EnumMap<Board.State, LongAdder> games = new EnumMap<>(Board.State.class);
+    private final LatencyRecorder makeMoveLatency = new LatencyRecorder();
+    private final LatencyRecorder computerMoveLatency = new LatencyRecorder();
+    private final LatencyRecorder winDetectionLatency = new LatencyRecorder();
+    private final List<Consumer<Interval>> listeners = new CopyOnWriteArrayList<>();
+
+    /* The totals at the end of the last interval. Guarded by this. */
+    private long sampledAt = System.nanoTime();
+    private long sampledMoves;
+    private long sampledBytes;
+    private long sampledReplayMoves;
+    private volatile Interval lastInterval;
+
+    BoardMetrics() {
+        for (Board.State state : Board.State.values()) {
+            this.games.put(state, new LongAdder());
+        }
+        this.lastInterval = new Interval(0, 0, 0, 0, new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram());
+    }
+
+    public static BoardMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers the default metrics with the platform MBean server and starts sampling them, unless that was done
+     * already.
+     */
+    public static synchronized void register() {
+        if (sampler != null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(DEFAULT, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sos-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(DEFAULT::sample, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Calls the listener with every interval sampled from now on, on the sampling thread.
+     */
+    public void addListener(Consumer<Interval> listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Interval> listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * A tile was placed on a board, taking the given time.
+     */
+    public void recordMove(long nanos) {
+        this.moves.increment();
+        this.makeMoveLatency.record(nanos);
+    }
+
+    /**
+     * A computer player chose a move, taking the given time.
+     */
+    public void recordComputerMove(long nanos) {
+        this.computerMoves.increment();
+        this.computerMoveLatency.record(nanos);
+    }
+
+    public void recordWinDetection(long nanos) {
+        this.winDetectionLatency.record(nanos);
+    }
+
+    public void recordGameOver(Board.State state) {
+        this.games.get(state).increment();
+    }
+
+    public void recordBytesWritten(long bytes) {
+        this.recordingBytes.add(bytes);
+    }
+
+    public void recordReplayMove() {
+        this.replayMoves.increment();
+    }
+
+    /**
+     * Ends the current interval and starts the next.
+     */
+    @Override
+    public void sample() {
+        Interval interval;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long moves = this.moves.sum();
+            long bytes = this.recordingBytes.sum();
+            long replayMoves = this.replayMoves.sum();
+            interval = new Interval(now - this.sampledAt, moves - this.sampledMoves, bytes - this.sampledBytes,
+                    replayMoves - this.sampledReplayMoves, this.makeMoveLatency.getIntervalHistogram(),
+                    this.computerMoveLatency.getIntervalHistogram(), this.winDetectionLatency.getIntervalHistogram());
+            this.sampledAt = now;
+            this.sampledMoves = moves;
+            this.sampledBytes = bytes;
+            this.sampledReplayMoves = replayMoves;
+            this.lastInterval = interval;
+        }
+        for (Consumer<Interval> listener : this.listeners) {
+            listener.accept(interval);
+        }
+    }
+
+    /**
+     * @return The last interval sampled, or an empty one before the first.
+     */
+    public Interval getLastInterval() {
+        return this.lastInterval;
+    }
+
+    @Override
+    public long getMovesPlayed() {
+        return this.moves.sum();
+    }
+
+    @Override
+    public double getMovesPerSecond() {
+        return this.lastInterval.getMovesPerSecond();
+    }
+
+    @Override
+    public long getComputerMoves() {
+        return this.computerMoves.sum();
+    }
+
+    @Override
+    public LatencySummary getMakeMoveLatency() {
+        return LatencySummary.of(this.lastInterval.getMakeMoveLatency());
+    }
+
+    @Override
+    public LatencySummary getComputerMoveLatency() {
+        return LatencySummary.of(this.lastInterval.getComputerMoveLatency());
+    }
+
+    @Override
+    public LatencySummary getWinDetectionLatency() {
+        return LatencySummary.of(this.lastInterval.getWinDetectionLatency());
+    }
+
+    @Override
+    public Map<String, Long> getGamesCompleted() {
+        Map<String, Long> games = new LinkedHashMap<>();
+        for (Board.State state : new Board.State[]{Board.State.PLAYER_ONE_WON, Board.State.PLAYER_TWO_WON, Board.State.DRAW}) {
+            games.put(state.toString(), getGamesCompleted(state));
+        }
+        return games;
+    }
+
+    public long getGamesCompleted(Board.State state) {
+        return this.games.get(state).sum();
+    }
+
+    @Override
+    public long getRecordingBytesWritten() {
+        return this.recordingBytes.sum();
+    }
+
+    @Override
+    public double getRecordingBytesPerSecond() {
+        return this.lastInterval.getRecordingBytesPerSecond();
+    }
+
+    @Override
+    public long getReplayMoves() {
+        return this.replayMoves.sum();
+    }
+
+    @Override
+    public double getReplayMovesPerSecond() {
+        return this.lastInterval.getReplayMovesPerSecond();
+    }
+
+    /**
+     * What was recorded between two samples. The histograms are in nanoseconds and belong to the interval.
+     */
+    public static final class Interval {
+        private final long elapsedNanos;
+        private final long moves;
+        private final long recordingBytes;
+        private final long replayMoves;
+        private final LatencyHistogram makeMoveLatency;
+        private final LatencyHistogram computerMoveLatency;
+        private final LatencyHistogram winDetectionLatency;
+
+        Interval(long elapsedNanos, long moves, long recordingBytes, long replayMoves, LatencyHistogram makeMoveLatency,
+                 LatencyHistogram computerMoveLatency, LatencyHistogram winDetectionLatency) {
+            this.elapsedNanos = elapsedNanos;
+            this.moves = moves;
+            this.recordingBytes = recordingBytes;
+            this.replayMoves = replayMoves;
+            this.makeMoveLatency = makeMoveLatency;
+            this.computerMoveLatency = computerMoveLatency;
+            this.winDetectionLatency = winDetectionLatency;
+        }
+
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        public long getMoves() {
+            return this.moves;
+        }
+
+        public double getMovesPerSecond() {
+            return perSecond(this.moves);
+        }
+
+        public long getRecordingBytes() {
+            return this.recordingBytes;
+        }
+
+        public double getRecordingBytesPerSecond() {
+            return perSecond(this.recordingBytes);
+        }
+
+        public long getReplayMoves() {
+            return this.replayMoves;
+        }
+
+        public double getReplayMovesPerSecond() {
+            return perSecond(this.replayMoves);
+        }
+
+        public LatencyHistogram getMakeMoveLatency() {
+            return this.makeMoveLatency;
+        }
+
+        public LatencyHistogram getComputerMoveLatency() {
+            return this.computerMoveLatency;
+        }
+
+        public LatencyHistogram getWinDetectionLatency() {
+            return this.winDetectionLatency;
+        }
+
+        private double perSecond(long count) {
+            return this.elapsedNanos == 0 ? 0 : count * 1e9 / this.elapsedNanos;
+        }
+    }
+}
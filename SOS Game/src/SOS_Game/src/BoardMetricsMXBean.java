@@ -0,0 +1,102 @@
+package SOS_Game.src;
+
+import java.beans.ConstructorProperties;
+import java.util.Map;
+
+/**
+ * The JMX view of {@link BoardMetrics}, registered as {@value BoardMetrics#OBJECT_NAME}. Totals count from the start
+ * of the process; rates and latencies describe the last completed sampling interval.
+ */
+public interface BoardMetricsMXBean {
+    long getMovesPlayed();
+
+    double getMovesPerSecond();
+
+    long getComputerMoves();
+
+    /**
+     * @return How long placing a tile took, including win detection and recording, but not any computer reply.
+     */
+    LatencySummary getMakeMoveLatency();
+
+    /**
+     * @return How long computer players took to choose their moves.
+     */
+    LatencySummary getComputerMoveLatency();
+
+    LatencySummary getWinDetectionLatency();
+
+    /**
+     * @return The number of games that ended in each final {@link Board.State}.
+     */
+    Map<String, Long> getGamesCompleted();
+
+    long getRecordingBytesWritten();
+
+    double getRecordingBytesPerSecond();
+
+    long getReplayMoves();
+
+    double getReplayMovesPerSecond();
+
+    /**
+     * Ends the current sampling interval early.
+     */
+    void sample();
+
+    /**
+     * Percentiles of one latency histogram, in microseconds.
+     */
+    final class LatencySummary {
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        @ConstructorProperties({"count", "mean", "p50", "p99", "p999", "max"})
+        public LatencySummary(long count, double mean, double p50, double p99, double p999, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        static LatencySummary of(LatencyHistogram nanos) {
+            return new LatencySummary(nanos.getTotalCount(), nanos.getMean() / 1e3, nanos.getValueAtPercentile(50) / 1e3,
+                    nanos.getValueAtPercentile(99) / 1e3, nanos.getValueAtPercentile(99.9) / 1e3, nanos.getMax() / 1e3);
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public double getMean() {
+            return this.mean;
+        }
+
+        public double getP50() {
+            return this.p50;
+        }
+
+        public double getP99() {
+            return this.p99;
+        }
+
+        public double getP999() {
+            return this.p999;
+        }
+
+        public double getMax() {
+            return this.max;
+        }
+
+        public String toString() {
+            return String.format("%s samples, mean %.1f us, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                    this.count, this.mean, this.p50, this.p99, this.p999, this.max);
+        }
+    }
+}
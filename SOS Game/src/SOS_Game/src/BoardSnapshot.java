@@ -0,0 +1,125 @@
+package SOS_Game.src;
+
+import java.util.ArrayList;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * An immutable copy of a {@link Board} at one moment of a game, taken by {@link Board#snapshot()}.
+ * <p>
+ * Only the packed tiles are copied, one bit per cell and tile, along with the scores, turn and state; empty cells are
+ * read back from the tiles rather than copied. Every field is final and nothing is ever written after construction, so
+ * a snapshot can be handed to hint generators, spectators and other analysis threads while the game goes on, without
+ * locking.
+ */
+public final class BoardSnapshot {
+    private final BitBoard cells;
+    private final Board.GameMode mode;
+    private final Board.State state;
+    private final int playerOnePoints;
+    private final int playerTwoPoints;
+    private final int side;
+    private final long hash;
+    private final int emptyCount;
+    private final int[] wins;
+
+    BoardSnapshot(BitBoard cells, Board.GameMode mode, Board.State state, int playerOnePoints, int playerTwoPoints,
+                  int side, long hash, int emptyCount, int[] wins) {
+        this.cells = cells;
+        this.mode = mode;
+        this.state = state;
+        this.playerOnePoints = playerOnePoints;
+        this.playerTwoPoints = playerTwoPoints;
+        this.side = side;
+        this.hash = hash;
+        this.emptyCount = emptyCount;
+        this.wins = wins;
+    }
+
+    public int getBoardSize() {
+        return this.cells.size();
+    }
+
+    public Board.GameMode getGameMode() {
+        return this.mode;
+    }
+
+    public Board.State getGameState() {
+        return this.state;
+    }
+
+    /**
+     * @return A new tile holding the value of the given cell; changing it does not change the snapshot.
+     */
+    public BoardTile getTile(int row, int column) {
+        assert (row >= 0 && row < getBoardSize() && column >= 0 && column < getBoardSize()) :
+                String.format("getTile(%s, %s) out of bounds for board size %s.", row, column, getBoardSize());
+        return new BoardTile(this.cells.get(row, column));
+    }
+
+    /**
+     * @return The points of {@link Position#PLAYER_ONE} or {@link Position#PLAYER_TWO}.
+     */
+    public int getPoints(int player) {
+        return player == Position.PLAYER_ONE ? this.playerOnePoints : this.playerTwoPoints;
+    }
+
+    /**
+     * @return {@link Position#PLAYER_ONE} or {@link Position#PLAYER_TWO}, whichever was to move.
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    public long getHash() {
+        return this.hash;
+    }
+
+    public int getEmptyTileCount() {
+        return this.emptyCount;
+    }
+
+    public boolean isFull() {
+        return this.emptyCount == 0;
+    }
+
+    /**
+     * @return Every empty cell, in row-major order.
+     */
+    public ArrayList<Pair> getEmptyTiles() {
+        ArrayList<Pair> emptyTiles = new ArrayList<>(this.emptyCount);
+        int size = getBoardSize();
+        for (int cell = 0; cell < size * size && emptyTiles.size() < this.emptyCount; cell++) {
+            if (this.cells.isEmpty(cell)) {
+                emptyTiles.add(new Pair(cell / size, cell % size));
+            }
+        }
+        return emptyTiles;
+    }
+
+    /**
+     * @return Every SOS line registered when the snapshot was taken, in no particular order.
+     */
+    public ArrayList<Match> getWins() {
+        ArrayList<Match> matches = new ArrayList<>(this.wins.length);
+        for (int key : this.wins) {
+            matches.add(Board.lineMatch(key, getBoardSize()));
+        }
+        return matches;
+    }
+
+    /**
+     * @return A new position to search or play out from the snapshot, owned by the caller.
+     */
+    public Position toPosition() {
+        int size = getBoardSize();
+        EmptyCells empty = new EmptyCells(size * size);
+        for (int cell = 0; cell < size * size; cell++) {
+            if (this.cells.get(cell) != TileValue.None) {
+                empty.remove(cell);
+            }
+        }
+        return new Position(this.mode, this.cells.copy(), empty, this.playerOnePoints, this.playerTwoPoints, this.side,
+                this.hash);
+    }
+}
@@ -0,0 +1,175 @@
+package SOS_Game.src;
+
+import java.util.EnumMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays the moves of computer players on a background thread, so that a slow engine never holds up the thread that
+ * drives the board, such as Swing's event dispatch thread.
+ * <p>
+ * {@link #schedule(Board)} copies the board into a {@link Position} and searches that on the scheduler's own thread
+ * for at most the time budget. The move found is handed back to the result executor, which plays it on the board,
+ * schedules the next computer move, if the other player is a computer as well, and then runs the listener. The board
+ * should only be changed on the result executor. {@link #cancel()} interrupts a search in progress and drops the move
+ * of every search started before it, so a move found for an old game never lands on a new one.
+ */
+public class ComputerMoveScheduler {
+    public static final long DEFAULT_TIME_BUDGET_MS = 500;
+    private static final int SEARCH_TABLE_SIZE = 1 << 18;
+
+    private final ExecutorService thinker;
+    private final Executor results;
+    private final Runnable listener;
+    private volatile long timeBudgetMillis = DEFAULT_TIME_BUDGET_MS;
+
+    /* Used only on the thinker thread. */
+    private final EnumMap<Player.PlayStyle, Engine> engines = new EnumMap<>(Player.PlayStyle.class);
+    private final SplittableRandom random = new SplittableRandom();
+    private long enginesBudgetMillis = DEFAULT_TIME_BUDGET_MS;
+
+    /* Guarded by this. The generation counts cancellations; a move is only played if none came after its search. */
+    private Future<?> pending;
+    private int generation;
+
+    /**
+     * @param results  Where moves are played on the board, e.g. {@code SwingUtilities::invokeLater}.
+     * @param listener Run on the result executor after every computer move.
+     */
+    public ComputerMoveScheduler(Executor results, Runnable listener) {
+        this.results = results;
+        this.listener = listener;
+        this.thinker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sos-computer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getTimeBudget() {
+        return this.timeBudgetMillis;
+    }
+
+    /**
+     * Sets how long the Search and MonteCarlo styles may think about each move, from the next move on.
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        assert (timeBudgetMillis > 0);
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * @return True while a computer move is being searched for or waits to be played.
+     */
+    public synchronized boolean isThinking() {
+        return this.pending != null;
+    }
+
+    /**
+     * Starts searching for a move if a computer player is to move on the board and no move is being searched for.
+     */
+    public synchronized void schedule(Board board) {
+        Player.PlayStyle style = board.getTurn().getStyle();
+        if (this.pending != null || style == Player.PlayStyle.Human || board.boardHasWinner() || board.isFull()) {
+            return;
+        }
+        Position position = board.toPosition();
+        int generation = this.generation;
+        this.pending = this.thinker.submit(() -> think(board, style, position, generation));
+    }
+
+    /**
+     * Stops the search in progress, if any. No move searched for before the call will be played.
+     */
+    public synchronized void cancel() {
+        this.generation++;
+        if (this.pending != null) {
+            this.pending.cancel(true);
+            this.pending = null;
+        }
+    }
+
+    /**
+     * Cancels the search in progress and stops the scheduler's threads. The scheduler cannot be used afterwards.
+     */
+    public void shutdown() {
+        cancel();
+        this.thinker.execute(this::clearEngines);
+        this.thinker.shutdown();
+    }
+
+    private void think(Board board, Player.PlayStyle style, Position position, int generation) {
+        int move;
+        try {
+            long start = System.nanoTime();
+            move = chooseMove(style, position);
+            BoardMetrics.getDefault().recordComputerMove(System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            this.results.execute(() -> {
+                if (finish(generation)) {
+                    this.listener.run();
+                }
+            });
+            return;
+        }
+        if (Thread.interrupted()) {
+            return;
+        }
+        this.results.execute(() -> play(board, generation, move));
+    }
+
+    private int chooseMove(Player.PlayStyle style, Position position) {
+        if (style == Player.PlayStyle.Search || style == Player.PlayStyle.MonteCarlo) {
+            if (this.enginesBudgetMillis != this.timeBudgetMillis) {
+                clearEngines();
+                this.enginesBudgetMillis = this.timeBudgetMillis;
+            }
+            return this.engines.computeIfAbsent(style, this::createEngine).bestMove(position);
+        }
+        return position.getThreats().greedyMove(position.getEmptyCells(), this.random);
+    }
+
+    private Engine createEngine(Player.PlayStyle style) {
+        if (style == Player.PlayStyle.Search) {
+            SearchEngine search = new SearchEngine(SEARCH_TABLE_SIZE, this.enginesBudgetMillis);
+            search.setTablebases(Tablebase::find);
+            return search;
+        }
+        // Leave a core to the thread that draws the board.
+        return new MonteCarloEngine(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), this.enginesBudgetMillis);
+    }
+
+    private void clearEngines() {
+        Engine monteCarlo = this.engines.get(Player.PlayStyle.MonteCarlo);
+        if (monteCarlo != null) {
+            ((MonteCarloEngine) monteCarlo).shutdown();
+        }
+        this.engines.clear();
+    }
+
+    /**
+     * @return False if the search of the given generation was cancelled.
+     */
+    private synchronized boolean finish(int generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+        this.pending = null;
+        return true;
+    }
+
+    private void play(Board board, int generation, int move) {
+        if (!finish(generation)) {
+            return;
+        }
+        int cell = Position.moveCell(move);
+        board.getTurn().setTile(Position.moveTile(move));
+        board.playMove(cell / board.getBoardSize(), cell % board.getBoardSize());
+        schedule(board);
+        this.listener.run();
+    }
+}
@@ -0,0 +1,145 @@
+package SOS_Game.src;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Index of the empty cells of a board, supporting O(1) removal, restoration and uniform random choice.
+ * <p>
+ * Cells live in a permutation array whose first {@link #size()} slots are the empty cells; filling a cell swaps it
+ * with the last empty slot. An inverse array maps each cell back to its slot. Both arrays are paged and store
+ * {@code value ^ index}, so an untouched page reads as the identity permutation and is never allocated: memory
+ * grows with the number of moves played rather than with the size of the board. The last page only holds the cells
+ * the board has.
+ */
+public class EmptyCells {
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int capacity;
+    private final int[][] slots;
+    private final int[][] positions;
+    private int size;
+
+    public EmptyCells(int capacity) {
+        this.capacity = capacity;
+        int pages = (capacity + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+        this.slots = new int[pages][];
+        this.positions = new int[pages][];
+        this.size = capacity;
+    }
+
+    private EmptyCells(EmptyCells other) {
+        this.capacity = other.capacity;
+        this.slots = copyPages(other.slots);
+        this.positions = copyPages(other.positions);
+        this.size = other.size;
+    }
+
+    private static int[][] copyPages(int[][] array) {
+        int[][] copy = new int[array.length][];
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] != null) copy[i] = array[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * @return The number of empty cells.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of cells on the board, empty or not.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return The empty cell held in the given slot, for slots {@code 0 <= slot < size()}.
+     */
+    public int get(int slot) {
+        assert (slot >= 0 && slot < this.size) : String.format("get(%s) out of bounds for %s empty cells.", slot, this.size);
+        return read(this.slots, slot);
+    }
+
+    /**
+     * @return The filled cell held in the given slot past the empty ones, for slots
+     *         {@code 0 <= slot < capacity() - size()}, so the tiles on a board can be listed without scanning it.
+     */
+    public int getFilled(int slot) {
+        assert (slot >= 0 && slot < this.capacity - this.size) :
+                String.format("getFilled(%s) out of bounds for %s filled cells.", slot, this.capacity - this.size);
+        return read(this.slots, this.size + slot);
+    }
+
+    /**
+     * @return An empty cell chosen uniformly at random.
+     */
+    public int random(Random random) {
+        return read(this.slots, random.nextInt(this.size));
+    }
+
+    public boolean contains(int cell) {
+        return read(this.positions, cell) < this.size;
+    }
+
+    /**
+     * Marks the given cell as filled.
+     */
+    public void remove(int cell) {
+        assert contains(cell) : String.format("Cell %s is not empty.", cell);
+        swap(read(this.positions, cell), --this.size);
+    }
+
+    /**
+     * Marks the given filled cell as empty again.
+     */
+    public void add(int cell) {
+        assert !contains(cell) : String.format("Cell %s is already empty.", cell);
+        swap(read(this.positions, cell), this.size++);
+    }
+
+    public EmptyCells copy() {
+        return new EmptyCells(this);
+    }
+
+    /**
+     * Marks every cell as empty and releases every allocated page.
+     */
+    public void reset() {
+        Arrays.fill(this.slots, null);
+        Arrays.fill(this.positions, null);
+        this.size = this.capacity;
+    }
+
+    private void swap(int slotA, int slotB) {
+        int cellA = read(this.slots, slotA);
+        int cellB = read(this.slots, slotB);
+        write(this.slots, slotA, cellB);
+        write(this.slots, slotB, cellA);
+        write(this.positions, cellA, slotB);
+        write(this.positions, cellB, slotA);
+    }
+
+    private static int read(int[][] array, int index) {
+        int[] page = array[index >>> PAGE_SHIFT];
+        return page == null ? index : page[index & PAGE_MASK] ^ index;
+    }
+
+    private void write(int[][] array, int index, int value) {
+        int[] page = array[index >>> PAGE_SHIFT];
+        if (page == null) {
+            if (value == index) {
+                return;
+            }
+            page = new int[Math.min(PAGE_SIZE, this.capacity - (index & ~PAGE_MASK))];
+            array[index >>> PAGE_SHIFT] = page;
+        }
+        page[index & PAGE_MASK] = value ^ index;
+    }
+}
@@ -0,0 +1,15 @@
+package SOS_Game.src;
+
+/**
+ * A strategy that chooses moves on behalf of a computer player.
+ *
+ * @see Player.PlayStyle
+ */
+public interface Engine {
+    /**
+     * Chooses a move for the side to move in the given position. The position is left as it was found.
+     *
+     * @return The chosen move, packed as described in {@link Position}.
+     */
+    int bestMove(Position position);
+}
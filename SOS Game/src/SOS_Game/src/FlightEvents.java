@@ -0,0 +1,100 @@
+package SOS_Game.src;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for moves, searches and recording I/O, so that latency outliers in a recording can be
+ * lined up with garbage collections and file I/O on the same timeline.
+ * <p>
+ * The events are off unless a recording enables them, e.g. {@code -XX:StartFlightRecording} with
+ * {@code SOS_Game.*} set to enabled. Callers {@code begin()} an event before the work and only fill in its fields
+ * once {@code shouldCommit()} says it will be kept, so a disabled event costs an allocation the JIT removes and a
+ * branch.
+ */
+final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    @Name("SOS_Game.Move")
+    @Label("Move")
+    @Category({"SOS Game", "Board"})
+    @Description("A tile placed on a board, including win detection and recording.")
+    @StackTrace(false)
+    static final class Move extends Event {
+        @Label("Board Size")
+        int boardSize;
+        @Label("Game Mode")
+        String mode;
+        @Label("Move Index")
+        @Description("The number of moves played in the game, counting this one.")
+        int moveIndex;
+        @Label("Row")
+        int row;
+        @Label("Column")
+        int column;
+        @Label("Tile")
+        String tile;
+        @Label("Points Gained")
+        int pointsGained;
+    }
+
+    @Name("SOS_Game.ComputerMove")
+    @Label("Computer Move")
+    @Category({"SOS Game", "Board"})
+    @Description("A computer player choosing its move.")
+    @StackTrace(false)
+    static final class ComputerMove extends Event {
+        @Label("Play Style")
+        String style;
+        @Label("Board Size")
+        int boardSize;
+        @Label("Game Mode")
+        String mode;
+        @Label("Move Index")
+        @Description("The number of moves played in the game before this one.")
+        int moveIndex;
+    }
+
+    @Name("SOS_Game.Search")
+    @Label("Search")
+    @Category({"SOS Game", "Engine"})
+    @Description("One call of an engine's bestMove.")
+    @StackTrace(false)
+    static final class Search extends Event {
+        @Label("Engine")
+        String engine;
+        @Label("Board Size")
+        int boardSize;
+        @Label("Game Mode")
+        String mode;
+        @Label("Empty Cells")
+        int emptyCells;
+        @Label("Nodes")
+        @Description("Positions visited by a tree search, or playouts made by a Monte Carlo search.")
+        long nodes;
+        @Label("Depth")
+        @Description("The deepest completed iteration of a tree search.")
+        int depth;
+    }
+
+    @Name("SOS_Game.RecordingIO")
+    @Label("Recording I/O")
+    @Category({"SOS Game", "Recording"})
+    @Description("Game recording bytes written to or read from a file.")
+    @StackTrace(false)
+    static final class RecordingIO extends Event {
+        @Label("Path")
+        String path;
+        @Label("Operation")
+        String operation;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+}
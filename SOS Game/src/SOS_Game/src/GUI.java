@@ -2,11 +2,15 @@ package SOS_Game.src;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.InputEvent;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.function.Consumer;
 
 public class GUI extends JFrame {
 
@@ -14,13 +18,19 @@ public class GUI extends JFrame {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
+    /** The largest board that fits on screen; larger boards can only be played headless. */
+    public static final int MAX_BOARD_SIZE = 9;
 	private static final int CELL_SIZE = 100;
     private static final int GRID_WIDTH = 8;
     private static final int GRID_WIDTH_HALF = GRID_WIDTH / 2;
     private static final int WIDTH_OFFSET = 200;
+    private static final int REPLAY_DELAY_MS = 300;
+    private static final long[] TIME_BUDGETS_MS = {100, 500, 2000, 5000};
 
     private static final int CELL_PADDING = CELL_SIZE / 6;
     private static final int SYMBOL_STROKE_WIDTH = 2;
+    private static final Stroke SYMBOL_STROKE = new BasicStroke(SYMBOL_STROKE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final Font SYMBOL_FONT = new Font("Helvetica", Font.PLAIN, GRID_WIDTH * 12);
 
     private int CANVAS_WIDTH;
     private int CANVAS_HEIGHT;
@@ -28,10 +38,20 @@ public class GUI extends JFrame {
     private GameBoardCanvas gameBoardCanvas;
     private JLabel gameStatusBar;
 
+    /** The board shown: the game's own board, or the replay's while one is shown. */
     private Board board;
+    /** The board of the game being played, put back when a replay ends. */
+    private final Board game;
+    /** The replay shown on the board, or null while a game is being played. */
+    private ReplayEngine replay;
+    private Timer replayTimer;
+    /** Plays computer players' moves off the event dispatch thread. */
+    private final ComputerMoveScheduler computer =
+            new ComputerMoveScheduler(SwingUtilities::invokeLater, () -> this.gameBoardCanvas.refresh());
 
     public GUI(Board board) {
         this.board = board;
+        this.game = board;
         setContentPane();
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         pack();
@@ -40,6 +60,7 @@ public class GUI extends JFrame {
     }
 
     public static void main(String[] args) {
+        BoardMetrics.register();
         SwingUtilities.invokeLater(() -> new GUI(new Board()));
     }
 
@@ -47,6 +68,12 @@ public class GUI extends JFrame {
         return board;
     }
 
+    @Override
+    public void dispose() {
+        this.computer.shutdown();
+        super.dispose();
+    }
+
     private void setContentPane() {
         this.gameBoardCanvas = new GameBoardCanvas();
         CANVAS_WIDTH = CELL_SIZE * board.getBoardSize();
@@ -58,8 +85,8 @@ public class GUI extends JFrame {
         gameStatusBar.setBorder(BorderFactory.createEmptyBorder(2, 5, 4, 5));
 
         JPanel topMenu = generateGameMenu();
-        JPanel leftMenu = generateTileMenu(this.board.playerOne);
-        JPanel rightMenu = generateTileMenu(this.board.playerTwo);
+        JPanel leftMenu = generateTileMenu(this.game.playerOne);
+        JPanel rightMenu = generateTileMenu(this.game.playerTwo);
 
         Container contentPane = getContentPane();
         contentPane.setLayout(new BorderLayout());
@@ -70,24 +97,31 @@ public class GUI extends JFrame {
         contentPane.add(rightMenu, BorderLayout.EAST);
         contentPane.add(gameBoardCanvas, BorderLayout.CENTER);
         contentPane.add(gameStatusBar, BorderLayout.AFTER_LAST_LINE);
+        this.gameBoardCanvas.refresh();
     }
 
     private void resetGame() {
+        this.computer.cancel();
+        stopReplay();
         this.board.initBoard();
         setContentPane();
         pack();
-        this.gameBoardCanvas.repaint();
-        this.gameBoardCanvas.printStatusBar();
     }
 
-    private void replayGame() throws AWTException {
+    private void replayGame() {
         GameReader reader;
-        int delayTimeMs = 20;
         JFileChooser fileChooser = new JFileChooser(System.getProperty("user.dir") + "/recorded");
         int dialog = fileChooser.showOpenDialog(new JFrame("Open File"));
         if (dialog == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
-            if (file.getName().contains(".sos")) {
+            if (file.getName().endsWith(".sosb")) {
+                try {
+                    reader = new BinaryGameReader(file);
+                } catch (IOException e) {
+                    System.out.println(String.format("Error: Could not read recording: %s", e.getMessage()));
+                    return;
+                }
+            } else if (file.getName().contains(".sos")) {
                 try {
                     reader = new GameReader(file);
                 } catch (FileNotFoundException e) {
@@ -101,32 +135,50 @@ public class GUI extends JFrame {
             return;
         }
 
-        this.board = new Board(reader.boardSize);
-        if (reader.gameMode != null) board.setGameMode(reader.gameMode);
-        resetGame();
-
-        Robot robot = new Robot();
-        robot.setAutoDelay(delayTimeMs);
+        if (reader.boardSize > MAX_BOARD_SIZE) {
+            System.out.println("Error: Recorded board is too large to display.");
+            return;
+        }
 
-        Thread safe = new Thread(() -> {
-            for (GameReader.Move move : reader.moves) {
-                robot.mouseMove(220 + (move.column * CELL_SIZE), WIDTH_OFFSET + (move.row * CELL_SIZE));
-                if (move.tile.equals("S")) {
-                    this.board.getTurn().setTile(BoardTile.TileValue.S);
-                }
-                if (move.tile.equals("O")) {
-                    this.board.getTurn().setTile(BoardTile.TileValue.O);
-                }
-                robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
-                robot.waitForIdle();
-                robot.delay(delayTimeMs);
+        try {
+            this.replay = new ReplayEngine(reader);
+        } catch (IllegalArgumentException e) {
+            System.out.println(String.format("Error: Could not replay recording: %s", e.getMessage()));
+            return;
+        }
+        this.board = this.replay.getBoard();
+        setContentPane();
+        pack();
 
-                robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
-                robot.waitForIdle();
-                robot.delay(delayTimeMs);
+        // Play the recording forwards; the arrow keys step through it and Home and End jump to either end.
+        this.replayTimer = new Timer(REPLAY_DELAY_MS, e -> {
+            if (this.replay == null || !this.replay.stepForward()) {
+                ((Timer) e.getSource()).stop();
             }
+            this.gameBoardCanvas.refresh();
         });
-        safe.start();
+        this.replayTimer.start();
+    }
+
+    private void stopReplay() {
+        if (this.replayTimer != null) {
+            this.replayTimer.stop();
+            this.replayTimer = null;
+        }
+        this.replay = null;
+        this.board = this.game;
+    }
+
+    /**
+     * Stops the replay's playback and lets the given action move through it instead.
+     */
+    private void controlReplay(Consumer<ReplayEngine> action) {
+        if (this.replay == null) {
+            return;
+        }
+        this.replayTimer.stop();
+        action.accept(this.replay);
+        this.gameBoardCanvas.refresh();
     }
 
     public JPanel generateGameMenu() {
@@ -145,11 +197,21 @@ public class GUI extends JFrame {
         JButton incButton = new JButton("+");
         JButton decButton = new JButton("-");
         JCheckBox recordGame = new JCheckBox("Record");
+        JButton undo = new JButton("Undo");
+        JButton redo = new JButton("Redo");
+        JComboBox<String> timeBudget = new JComboBox<>();
+        for (long budget : TIME_BUDGETS_MS) {
+            timeBudget.addItem(String.format("%s s", budget / 1000.0));
+            if (budget == this.computer.getTimeBudget()) {
+                timeBudget.setSelectedIndex(timeBudget.getItemCount() - 1);
+            }
+        }
+        timeBudget.setToolTipText("How long a computer player may think about each move");
 
         Runnable resetSelected = () -> {
-            simpleGame.setSelected(this.board.getGameMode() == Board.GameMode.Simple);
-            generalGame.setSelected(this.board.getGameMode() == Board.GameMode.General);
-            recordGame.setSelected(this.board.recordGame);
+            simpleGame.setSelected(this.game.getGameMode() == Board.GameMode.Simple);
+            generalGame.setSelected(this.game.getGameMode() == Board.GameMode.General);
+            recordGame.setSelected(this.game.recordGame);
         };
 
         newGame.addActionListener(e -> {
@@ -159,31 +221,51 @@ public class GUI extends JFrame {
 
         resetSelected.run();
 
-        simpleGame.addActionListener(e -> board.setGameMode(Board.GameMode.Simple));
-        generalGame.addActionListener(e -> board.setGameMode(Board.GameMode.General));
-        recordGame.addActionListener(e -> board.toggleRecording());
+        // Settings always apply to the game, even while a replay covers it up.
+        simpleGame.addActionListener(e -> this.game.setGameMode(Board.GameMode.Simple));
+        generalGame.addActionListener(e -> this.game.setGameMode(Board.GameMode.General));
+        recordGame.addActionListener(e -> this.game.toggleRecording());
         replayGame.addActionListener(e -> {
             resetGame();
-            try {
-                replayGame();
-            } catch (AWTException ex) {
-                ex.printStackTrace();
+            replayGame();
+        });
+
+        // Computer moves are taken back and replayed together with the human move that led to them.
+        undo.addActionListener(e -> {
+            if (this.replay != null) {
+                return;
+            }
+            this.computer.cancel();
+            while (this.board.undo() && this.board.getTurn().getStyle() != Player.PlayStyle.Human) {
+            }
+            this.computer.schedule(this.board);
+            this.gameBoardCanvas.refresh();
+        });
+        redo.addActionListener(e -> {
+            if (this.replay != null) {
+                return;
             }
+            this.computer.cancel();
+            while (this.board.redo() && this.board.getTurn().getStyle() != Player.PlayStyle.Human) {
+            }
+            this.computer.schedule(this.board);
+            this.gameBoardCanvas.refresh();
         });
+        timeBudget.addActionListener(e -> this.computer.setTimeBudget(TIME_BUDGETS_MS[timeBudget.getSelectedIndex()]));
 
         incButton.addActionListener(e -> {
-            if (this.board.getBoardSize() >= Board.MAX_BOARD_SIZE) {
+            if (this.game.getBoardSize() >= MAX_BOARD_SIZE) {
                 return;
             }
-            board.setGrid(new BoardTile[board.getBoardSize() + 1][board.getBoardSize() + 1]);
+            this.game.setGrid(new BoardTile[this.game.getBoardSize() + 1][this.game.getBoardSize() + 1]);
             resetGame();
         });
 
         decButton.addActionListener(e -> {
-            if (board.getBoardSize() <= Board.MIN_BOARD_SIZE) {
+            if (this.game.getBoardSize() <= Board.MIN_BOARD_SIZE) {
                 return;
             }
-            board.setGrid(new BoardTile[board.getBoardSize() - 1][board.getBoardSize() - 1]);
+            this.game.setGrid(new BoardTile[this.game.getBoardSize() - 1][this.game.getBoardSize() - 1]);
             resetGame();
         });
 
@@ -200,7 +282,12 @@ public class GUI extends JFrame {
 
         JPanel gameStartMenu = new JPanel();
         gameStartMenu.setLayout(new BorderLayout());
+        JPanel historyMenu = new JPanel();
+        historyMenu.add(undo);
+        historyMenu.add(redo);
+        historyMenu.add(timeBudget);
         gameStartMenu.add(newGame, BorderLayout.WEST);
+        gameStartMenu.add(historyMenu, BorderLayout.CENTER);
         gameStartMenu.add(replayGame, BorderLayout.EAST);
 
         menu.add(boardSizeMenu, BorderLayout.PAGE_START);
@@ -219,56 +306,79 @@ public class GUI extends JFrame {
         menu.add(new Label(player.getName()));
         JRadioButton s = new JRadioButton("S");
         JRadioButton o = new JRadioButton("O");
-        JRadioButton human = new JRadioButton("Human");
-        JRadioButton comp = new JRadioButton("Computer");
 
         s.setSelected(player.getTile().getValue() == BoardTile.TileValue.S);
         o.setSelected(player.getTile().getValue() == BoardTile.TileValue.O);
-        human.setSelected(player.getStyle() == Player.PlayStyle.Human);
-        comp.setSelected(player.getStyle() == Player.PlayStyle.Computer);
 
         s.addActionListener(e -> player.setTile(BoardTile.TileValue.S));
         o.addActionListener(e -> player.setTile(BoardTile.TileValue.O));
-        human.addActionListener(e -> player.setStyle(Player.PlayStyle.Human));
-        comp.addActionListener(e -> {
-            player.setStyle(Player.PlayStyle.Computer);
-            if (board.getTurn() == player) {
-                board.makeComputerMove();
-                repaint();
-            }
-        });
 
         tileSelection.add(s);
         tileSelection.add(o);
-        styleSelection.add(human);
-        styleSelection.add(comp);
         menu.add(s);
         menu.add(o);
-        menu.add(human);
-        menu.add(comp);
+
+        for (Player.PlayStyle style : Player.PlayStyle.values()) {
+            JRadioButton button = new JRadioButton(style.toString());
+            button.setSelected(player.getStyle() == style);
+            button.addActionListener(e -> {
+                player.setStyle(style);
+                if (board.getTurn() == player) {
+                    computer.cancel();
+                    computer.schedule(board);
+                    gameBoardCanvas.refresh();
+                }
+            });
+            styleSelection.add(button);
+            menu.add(button);
+        }
+
         menu.setPreferredSize(new Dimension(100, CANVAS_HEIGHT + 15));
         return menu;
     }
 
+    /**
+     * Draws the board. The grid is drawn once into an image that is copied behind the tiles on every paint, and
+     * {@link #refresh()} repaints only the cells that changed since it last ran, so a move repaints a single cell.
+     */
     class GameBoardCanvas extends JPanel {
         /**
 		 * 
 		 */
 		private static final long serialVersionUID = 1L;
 
+        private BufferedImage grid;
+        /** The value of every cell as of the last refresh, or null before the first. */
+        private BoardTile.TileValue[] shown;
+
 		GameBoardCanvas() {
+            setBackground(Color.WHITE);
+            bindReplayKey(KeyEvent.VK_RIGHT, "stepForward", ReplayEngine::stepForward);
+            bindReplayKey(KeyEvent.VK_LEFT, "stepBack", ReplayEngine::stepBack);
+            bindReplayKey(KeyEvent.VK_HOME, "rewind", ReplayEngine::rewind);
+            bindReplayKey(KeyEvent.VK_END, "fastForward", ReplayEngine::fastForward);
             addMouseListener(new MouseAdapter() {
                 public void mouseClicked(MouseEvent e) {
+                    if (replay != null) {
+                        return;
+                    }
                     if (board.getGameState() == Board.State.PLAYING || board.getGameState() == Board.State.INIT) {
+                        // Clicks wait for the computer player to move.
+                        if (computer.isThinking() || board.getTurn().getStyle() != Player.PlayStyle.Human) {
+                            return;
+                        }
                         int rowSelected = e.getY() / CELL_SIZE;
                         int colSelected = e.getX() / CELL_SIZE;
-                        board.makeMove(rowSelected, colSelected);
-                        repaint();
+                        if (rowSelected >= board.getBoardSize() || colSelected >= board.getBoardSize()) {
+                            return;
+                        }
+                        board.playMove(rowSelected, colSelected);
+                        computer.schedule(board);
                     } else {
-                        gameStatusBar.setText("");
+                        computer.cancel();
                         board.initBoard();
                     }
-                    repaint();
+                    refresh();
                 }
 
                 public void mouseReleased(MouseEvent e) {
@@ -276,16 +386,55 @@ public class GUI extends JFrame {
             });
         }
 
+        private void bindReplayKey(int key, String name, Consumer<ReplayEngine> action) {
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key, 0), name);
+            getActionMap().put(name, new AbstractAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    controlReplay(action);
+                }
+            });
+        }
+
+        /**
+         * Repaints the cells that changed since the last refresh, or the whole board the first time, and updates the
+         * status bar. Call it after every change to the board.
+         */
+        void refresh() {
+            int size = board.getBoardSize();
+            if (this.shown == null || this.shown.length != size * size) {
+                this.shown = new BoardTile.TileValue[size * size];
+                for (int cell = 0; cell < size * size; cell++) {
+                    this.shown[cell] = board.getTileValue(cell / size, cell % size);
+                }
+                repaint();
+            } else {
+                for (int cell = 0; cell < size * size; cell++) {
+                    BoardTile.TileValue value = board.getTileValue(cell / size, cell % size);
+                    if (value != this.shown[cell]) {
+                        this.shown[cell] = value;
+                        repaint((cell % size) * CELL_SIZE, (cell / size) * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+                    }
+                }
+            }
+            printStatusBar();
+        }
+
         @Override
         public void paintComponent(Graphics g) {
             super.paintComponent(g);
-            setBackground(Color.WHITE);
-            drawGridLines(g);
+            if (this.grid == null || this.grid.getWidth() != CANVAS_WIDTH || this.grid.getHeight() != CANVAS_HEIGHT) {
+                this.grid = drawGridLines();
+            }
+            g.drawImage(this.grid, 0, 0, null);
             drawBoard(g);
-            printStatusBar();
         }
 
-        private void drawGridLines(Graphics g) {
+        private BufferedImage drawGridLines() {
+            BufferedImage image = new BufferedImage(CANVAS_WIDTH, CANVAS_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            Graphics g = image.createGraphics();
             g.setColor(Color.LIGHT_GRAY);
 
             for (int row = 1; row < board.getBoardSize(); row++) {
@@ -295,21 +444,35 @@ public class GUI extends JFrame {
                 g.fillRoundRect(CELL_SIZE * row - GRID_WIDTH_HALF, 0,
                         GRID_WIDTH, CANVAS_HEIGHT - 1, GRID_WIDTH, GRID_WIDTH);
             }
+            g.dispose();
+            return image;
         }
 
+        /**
+         * Draws the tiles of the cells inside the clip, which is a single cell when only that cell was repainted.
+         */
         private void drawBoard(Graphics g) {
             Graphics2D g2d = (Graphics2D) g;
-            g2d.setStroke(new BasicStroke(SYMBOL_STROKE_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2d.setFont(new Font("Helvetica", Font.PLAIN, GRID_WIDTH * 12));
+            g2d.setStroke(SYMBOL_STROKE);
+            g2d.setFont(SYMBOL_FONT);
 
-            for (int row = 0; row < board.getBoardSize(); row++) {
-                for (int col = 0; col < board.getBoardSize(); col++) {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
+            }
+            int firstRow = Math.max(0, clip.y / CELL_SIZE);
+            int lastRow = Math.min(board.getBoardSize() - 1, (clip.y + clip.height - 1) / CELL_SIZE);
+            int firstCol = Math.max(0, clip.x / CELL_SIZE);
+            int lastCol = Math.min(board.getBoardSize() - 1, (clip.x + clip.width - 1) / CELL_SIZE);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
                     int x1 = col * CELL_SIZE + CELL_PADDING;
                     int y1 = row * CELL_SIZE + CELL_PADDING;
-                    if (board.getTile(row, col).getValue() == BoardTile.TileValue.S) {
+                    BoardTile.TileValue value = board.getTileValue(row, col);
+                    if (value == BoardTile.TileValue.S) {
                         g2d.setColor(Color.RED);
                         g2d.drawString("S", x1 + 5, y1 + 70);
-                    } else if (board.getTile(row, col).getValue() == BoardTile.TileValue.O) {
+                    } else if (value == BoardTile.TileValue.O) {
                         g2d.setColor(Color.BLUE);
                         g2d.drawString("O", x1 - 2, y1 + 70);
                     }
@@ -322,7 +485,11 @@ public class GUI extends JFrame {
                 case PLAYING:
                 case INIT: {
                     gameStatusBar.setForeground(Color.BLACK);
-                    gameStatusBar.setText(String.format("%s's Turn (%s points)", board.getTurn().getName(), board.getTurn().getPoints()));
+                    if (computer.isThinking()) {
+                        gameStatusBar.setText(String.format("%s is thinking... (%s points)", board.getTurn().getName(), board.getTurn().getPoints()));
+                    } else {
+                        gameStatusBar.setText(String.format("%s's Turn (%s points)", board.getTurn().getName(), board.getTurn().getPoints()));
+                    }
                     break;
                 }
                 case DRAW: {
@@ -0,0 +1,330 @@
+package SOS_Game.src;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Stores many recorded games in a few large files instead of one file per game.
+ * <p>
+ * Games are appended, in the {@code .sosb} encoding of {@link BinaryGameWriter}, to segment files that roll over once
+ * they reach {@link #SEGMENT_SIZE} bytes. A memory-mapped index holds one fixed-size entry per game with its segment,
+ * offset, length, timestamp, board size and mode, so a game's id is its entry number and looking it up is a single
+ * read of mapped memory. Timestamps never decrease from one game to the next, which makes a time range a binary
+ * search; queries by size or mode scan the index without touching the segments.
+ * <p>
+ * The entry count in the index header is written only after the game and its entry, so a crash while appending leaves
+ * at most some unreferenced bytes at the end of a segment. Appending is synchronized; reads may run concurrently with
+ * each other and with appends.
+ */
+public class GameArchive implements Closeable {
+    public static final String INDEX_NAME = "index.sosi";
+    static final int SEGMENT_SIZE = 1 << 28;
+
+    private static final int MAGIC = 0x534F5349; // "SOSI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int ENTRY_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    /** A single mapping is limited to 2 GiB, which bounds the archive to about 67 million games. */
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / ENTRY_SIZE;
+
+    private static final int TIMESTAMP = 0;
+    private static final int OFFSET = 8;
+    private static final int LENGTH = 16;
+    private static final int SEGMENT = 20;
+    private static final int BOARD_SIZE = 24;
+    private static final int MODE = 28;
+
+    private static GameArchive defaultArchive;
+
+    private final File directory;
+    private final FileChannel indexChannel;
+    private final ArrayList<FileChannel> segments = new ArrayList<>();
+    private volatile MappedByteBuffer index;
+    private volatile int count;
+
+    /**
+     * Opens the archive in the given directory, creating it if necessary.
+     */
+    public GameArchive(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Cannot create archive directory %s.", directory));
+        }
+        this.directory = directory;
+        this.indexChannel = FileChannel.open(new File(directory, INDEX_NAME).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = this.indexChannel.size() == 0;
+        long capacity = created ? INITIAL_CAPACITY : (this.indexChannel.size() - HEADER_SIZE) / ENTRY_SIZE;
+        this.index = map(capacity);
+        if (created) {
+            this.index.putInt(0, MAGIC);
+            this.index.putInt(4, VERSION);
+            this.index.putLong(COUNT_OFFSET, 0);
+        } else if (this.index.getInt(0) != MAGIC || this.index.getInt(4) != VERSION) {
+            this.indexChannel.close();
+            throw new IOException(String.format("%s is not a version %s game archive index.", INDEX_NAME, VERSION));
+        }
+        this.count = (int) this.index.getLong(COUNT_OFFSET);
+        for (int segment = 0; segmentFile(segment).exists(); segment++) {
+            this.segments.add(openSegment(segment));
+        }
+    }
+
+    /**
+     * @return The archive under {@code recorded/archive/}, opened on first use and shared by every board.
+     */
+    public static synchronized GameArchive getDefault() throws IOException {
+        if (defaultArchive == null) {
+            defaultArchive = new GameArchive(new File(String.format("%s/recorded/archive", System.getProperty("user.dir"))));
+        }
+        return defaultArchive;
+    }
+
+    /**
+     * @return The number of games in the archive. Ids run from zero to one less than this.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Appends a game in the {@code .sosb} encoding.
+     *
+     * @param timestamp The time the game was recorded, in milliseconds since the epoch. Raised to the previous game's
+     *                  timestamp if it is earlier, so that timestamps never decrease.
+     * @return The new game's id.
+     */
+    public synchronized int append(byte[] recording, long timestamp, int boardSize, Board.GameMode mode) throws IOException {
+        int id = this.count;
+        if (id == MAX_CAPACITY) {
+            throw new IOException("Game archive index is full.");
+        }
+        if (id > 0) {
+            timestamp = Math.max(timestamp, getTimestamp(id - 1));
+        }
+
+        int segment = this.segments.size() - 1;
+        if (segment < 0 || this.segments.get(segment).size() + recording.length > SEGMENT_SIZE) {
+            segment++;
+            this.segments.add(openSegment(segment));
+        }
+        FileChannel channel = this.segments.get(segment);
+        long offset = channel.size();
+        FlightEvents.RecordingIO event = new FlightEvents.RecordingIO();
+        event.begin();
+        ByteBuffer buffer = ByteBuffer.wrap(recording);
+        for (long position = offset; buffer.hasRemaining(); ) {
+            position += channel.write(buffer, position);
+        }
+        BoardMetrics.getDefault().recordBytesWritten(recording.length);
+        if (event.shouldCommit()) {
+            event.path = segmentFile(segment).getPath();
+            event.operation = "archive append";
+            event.bytes = recording.length;
+            event.commit();
+        }
+
+        if (entry(id + 1) > this.index.capacity()) {
+            this.index = map(Math.min((long) MAX_CAPACITY, 2L * (this.index.capacity() - HEADER_SIZE) / ENTRY_SIZE));
+        }
+        MappedByteBuffer index = this.index;
+        int entry = entry(id);
+        index.putLong(entry + TIMESTAMP, timestamp);
+        index.putLong(entry + OFFSET, offset);
+        index.putInt(entry + LENGTH, recording.length);
+        index.putInt(entry + SEGMENT, segment);
+        index.putInt(entry + BOARD_SIZE, boardSize);
+        index.put(entry + MODE, (byte) mode.ordinal());
+        index.putLong(COUNT_OFFSET, id + 1);
+        this.count = id + 1;
+        return id;
+    }
+
+    /**
+     * @return The {@code .sosb} encoding of the game with the given id.
+     */
+    public byte[] read(int id) throws IOException {
+        checkId(id);
+        MappedByteBuffer index = this.index;
+        int entry = entry(id);
+        FileChannel channel;
+        synchronized (this) {
+            channel = this.segments.get(index.getInt(entry + SEGMENT));
+        }
+        FlightEvents.RecordingIO event = new FlightEvents.RecordingIO();
+        event.begin();
+        ByteBuffer buffer = ByteBuffer.allocate(index.getInt(entry + LENGTH));
+        for (long position = index.getLong(entry + OFFSET); buffer.hasRemaining(); ) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException(String.format("Game %s is truncated.", id));
+            }
+            position += read;
+        }
+        if (event.shouldCommit()) {
+            event.path = segmentFile(index.getInt(entry + SEGMENT)).getPath();
+            event.operation = "archive read";
+            event.bytes = buffer.capacity();
+            event.commit();
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return A reader over the moves of the game with the given id.
+     */
+    public BinaryGameReader open(int id) throws IOException {
+        return new BinaryGameReader(new ByteArrayInputStream(read(id)));
+    }
+
+    public long getTimestamp(int id) {
+        checkId(id);
+        return this.index.getLong(entry(id) + TIMESTAMP);
+    }
+
+    public int getBoardSize(int id) {
+        checkId(id);
+        return this.index.getInt(entry(id) + BOARD_SIZE);
+    }
+
+    public Board.GameMode getGameMode(int id) {
+        checkId(id);
+        return Board.GameMode.values()[this.index.get(entry(id) + MODE)];
+    }
+
+    /**
+     * @return The ids, in order, of the games recorded from {@code from} up to and including {@code to}.
+     */
+    public int[] findBetween(long from, long to) {
+        // The count is published after the index is remapped, so reading it first guarantees the index covers it.
+        int count = this.count;
+        MappedByteBuffer index = this.index;
+        int low = firstAtOrAfter(index, count, from);
+        int high = to == Long.MAX_VALUE ? count : firstAtOrAfter(index, count, to + 1);
+        int[] ids = new int[Math.max(0, high - low)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = low + i;
+        }
+        return ids;
+    }
+
+    /**
+     * @param boardSize The board size to match, or zero for any.
+     * @param mode      The game mode to match, or null for any.
+     * @return The ids, in order, of the matching games.
+     */
+    public int[] find(int boardSize, Board.GameMode mode) {
+        // The count is published after the index is remapped, so reading it first guarantees the index covers it.
+        int count = this.count;
+        MappedByteBuffer index = this.index;
+        int[] ids = new int[16];
+        int found = 0;
+        for (int id = 0; id < count; id++) {
+            int entry = entry(id);
+            if ((boardSize == 0 || index.getInt(entry + BOARD_SIZE) == boardSize)
+                    && (mode == null || index.get(entry + MODE) == mode.ordinal())) {
+                if (found == ids.length) ids = Arrays.copyOf(ids, found * 2);
+                ids[found++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, found);
+    }
+
+    /**
+     * Forces the index and every segment to disk.
+     */
+    public synchronized void force() throws IOException {
+        for (FileChannel segment : this.segments) {
+            segment.force(false);
+        }
+        this.index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel segment : this.segments) {
+            segment.close();
+        }
+        this.indexChannel.close();
+        synchronized (GameArchive.class) {
+            if (defaultArchive == this) defaultArchive = null;
+        }
+    }
+
+    private static int firstAtOrAfter(MappedByteBuffer index, int count, long timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.getLong(entry(middle) + TIMESTAMP) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private MappedByteBuffer map(long capacity) throws IOException {
+        return this.indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity * ENTRY_SIZE);
+    }
+
+    private static int entry(int id) {
+        return HEADER_SIZE + id * ENTRY_SIZE;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.count) {
+            throw new IndexOutOfBoundsException(String.format("No game %s in an archive of %s games.", id, this.count));
+        }
+    }
+
+    private File segmentFile(int segment) {
+        return new File(this.directory, String.format("segment-%05d.sosa", segment));
+    }
+
+    private FileChannel openSegment(int segment) throws IOException {
+        return FileChannel.open(segmentFile(segment).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Imports every {@code .sos} and {@code .sosb} recording in a directory into an archive.
+     * <p>
+     * Usage: {@code GameArchive RECORDINGS_DIRECTORY [ARCHIVE_DIRECTORY]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: GameArchive RECORDINGS_DIRECTORY [ARCHIVE_DIRECTORY]");
+            return;
+        }
+        File source = new File(args[0]);
+        File[] files = source.listFiles((dir, name) -> name.endsWith(".sos") || name.endsWith(".sosb"));
+        if (files == null) {
+            System.out.println(String.format("Error: %s is not a directory.", source));
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        try (GameArchive archive = new GameArchive(new File(args.length > 1 ? args[1] : args[0] + "/archive"))) {
+            int imported = 0;
+            for (File file : files) {
+                GameReader reader = file.getName().endsWith(".sosb") ? new BinaryGameReader(file) : new GameReader(file);
+                archive.append(BinaryGameWriter.encode(reader), file.lastModified(), reader.getBoardSize(),
+                        BinaryGameWriter.modeOf(reader));
+                imported++;
+            }
+            archive.force();
+            System.out.println(String.format("Imported %s recordings; the archive now holds %s games.", imported, archive.size()));
+        }
+    }
+}
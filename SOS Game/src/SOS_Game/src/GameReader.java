@@ -1,70 +1,70 @@
 package SOS_Game.src;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.NoSuchElementException;
-import java.util.Objects;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class GameReader {
     ArrayList<Move> moves;
     int boardSize;
     Board.GameMode gameMode;
-    public GameReader(File file) throws FileNotFoundException {
-        assert(file.getName().contains(".sos"));
-        Scanner reader = new Scanner(file);
 
-        StringBuilder contents = new StringBuilder();
+    /**
+     * For readers of other recording formats, which fill in the fields themselves.
+     */
+    protected GameReader() {
+        this.moves = new ArrayList<>();
+    }
 
-        while (reader.hasNextLine()) {
-            try {
-                contents.append(reader.nextLine()).append("\n");
-            } catch (NoSuchElementException ex) {
-                break;
+    /**
+     * Reads every move of the given recording into memory. Use {@link GameStreamReader} to walk large recordings
+     * without holding all of their moves.
+     */
+    public GameReader(File file) throws FileNotFoundException {
+        assert(file.getName().contains(".sos"));
+        FlightEvents.RecordingIO event = new FlightEvents.RecordingIO();
+        event.begin();
+        try (GameStreamReader reader = new GameStreamReader(file)) {
+            this.moves = collect(reader);
+            if (event.shouldCommit()) {
+                event.path = file.getPath();
+                event.operation = "read";
+                event.bytes = file.length();
+                event.commit();
             }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        this.moves = read(String.valueOf(contents));
     }
 
     
-    public ArrayList<Move> read(String string) {
-        final String move_pattern = "Player (?<Player>[12]) \\((?<Tile>[SO]), (?<Style>Human|Computer)\\): \\((?<Row>(\\d)),(?<Column>(\\d))\\)";
-        final String initialize_pattern = "Board has been initialized at size (?<size>\\d).";
-        final String mode_pattern = "Game mode has been switched to (?<mode>\\w+).";
+    public ArrayList<Move> getMoves() {
+        return this.moves;
+    }
 
-        final Pattern match_move = Pattern.compile(move_pattern, Pattern.MULTILINE);
-        final Pattern match_init = Pattern.compile(initialize_pattern, Pattern.MULTILINE);
-        final Pattern match_mode = Pattern.compile(mode_pattern, Pattern.MULTILINE);
+    public int getBoardSize() {
+        return this.boardSize;
+    }
 
-        final Matcher init_matcher = match_init.matcher(string);
-        if (init_matcher.find()) {
-            this.boardSize = Integer.parseInt(init_matcher.group("size"));
-        }
+    public Board.GameMode getGameMode() {
+        return this.gameMode;
+    }
 
-        final Matcher mode_matcher = match_mode.matcher(string);
-        if (mode_matcher.find()) {
-            if (Objects.equals(mode_matcher.group("mode"), "Simple")) {
-                this.gameMode = Board.GameMode.Simple;
-            } else {
-                this.gameMode = Board.GameMode.General;
-            }
-        }
+    public ArrayList<Move> read(String string) {
+        return collect(new GameStreamReader(new StringReader(string)));
+    }
 
-        final Matcher matcher = match_move.matcher(string);
+    private ArrayList<Move> collect(GameStreamReader reader) {
         ArrayList<Move> moves = new ArrayList<>();
-
-        while (matcher.find()) {
-            String player = matcher.group("Player");
-            String tile = matcher.group("Tile");
-            String style = matcher.group("Style");
-            String row = matcher.group("Row");
-            String column = matcher.group("Column");
-
-            moves.add(new Move(player, tile, style, row, column));
+        while (reader.hasNext()) {
+            moves.add(reader.next());
         }
+        this.boardSize = reader.getBoardSize();
+        this.gameMode = reader.getGameMode();
         return moves;
     }
 
@@ -72,8 +72,8 @@ public class GameReader {
         public final String player;
         public final String tile;
         public final String style;
-        final int row;
-        final int column;
+        public final int row;
+        public final int column;
 
         public Move(String player, String tile, String style, String row, String column) {
             this.player = player;
@@ -83,6 +83,14 @@ public class GameReader {
             this.column = Integer.parseInt(column);
         }
 
+        public Move(String player, String tile, String style, int row, int column) {
+            this.player = player;
+            this.tile = tile;
+            this.style = style;
+            this.row = row;
+            this.column = column;
+        }
+
         @Override
         public String toString() {
             return "Move{" +
@@ -0,0 +1,30 @@
+package SOS_Game.src;
+
+/**
+ * Destination for the record of a game as it is played.
+ *
+ * @see GameWriter
+ * @see BinaryGameWriter
+ */
+public interface GameRecorder {
+    void writeMove(int row, int column, Player player);
+
+    /**
+     * Records a free-form message about the game. Formats that can derive the message from the moves may ignore it.
+     */
+    void writeMessage(String message);
+
+    void clearBuffer();
+
+    /**
+     * Finishes the recording: everything recorded so far ends up in the recording's file under {@code recorded/},
+     * which is then closed.
+     */
+    void writeToFile();
+
+    /**
+     * Releases the recording's file, if it has one, keeping what has been recorded. Does nothing if the recording is
+     * already closed.
+     */
+    void close();
+}
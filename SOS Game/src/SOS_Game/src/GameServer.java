@@ -0,0 +1,541 @@
+package SOS_Game.src;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * Hosts many independent games for clients speaking a line protocol over TCP.
+ * <p>
+ * Every request is one line and gets exactly one reply line, {@code OK ...}, {@code STATE ...} or
+ * {@code ERROR message}; subscribers are also sent {@code EVENT ...} lines whenever a game changes:
+ * <pre>
+ * NEW size Simple|General [playerOneStyle playerTwoStyle]  -> OK id
+ * MOVE id row column S|O                                  -> STATE ...
+ * STATE id                                                -> STATE ...
+ * GO id                                                   -> OK      (retries a computer move the server was too busy for)
+ * SUBSCRIBE id / UNSUBSCRIBE id                           -> OK
+ * CLOSE id                                                -> OK      (only from the connection that created the game)
+ * QUIT
+ * </pre>
+ * A state reads {@code STATE id size mode state turn playerOnePoints playerTwoPoints cells}, where the turn is 1 or 2
+ * and the cells are the board in row-major order, {@code .} for an empty cell. A game lasts until the connection that
+ * created it closes it or disconnects.
+ * <p>
+ * Each connection is served by two threads of its own, virtual threads when the runtime has them (Java 21 onwards) and
+ * platform threads otherwise: one reads requests and the other writes replies and events from the connection's queue,
+ * so no other thread ever waits on a client's socket. A client that stops reading is disconnected once
+ * {@value #OUTBOX_CAPACITY} lines are waiting for it. Each game is confined by its own lock, held only while the board
+ * is read or changed, so games never wait for each other. Computer players think on a fixed pool of CPU threads with a
+ * bounded queue, and without holding their game's lock, so AI work can neither starve the connection threads nor block
+ * state requests. When the queue is full the game's subscribers are sent {@code BUSY id} and a client may send
+ * {@code GO id} later.
+ */
+public class GameServer implements Closeable {
+    /** The largest board a client may ask for: every play style still searches it and a state line stays short. */
+    public static final int MAX_BOARD_SIZE = SearchEngine.MAX_BOARD_SIZE;
+    private static final int DEFAULT_MAX_SESSIONS = 100_000;
+    private static final int QUEUE_PER_CPU_THREAD = 256;
+    private static final int OUTBOX_CAPACITY = 4096;
+    /** Queued to stop a connection's writer; compared by identity, so no reply can be mistaken for it. */
+    private static final String HANG_UP = new String("HANG_UP");
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final ThreadPoolExecutor cpuPool;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final Set<Connection> openConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long timeBudgetMillis;
+    private final int maxSessions;
+    private final ThreadLocal<EnumMap<Player.PlayStyle, Engine>> engines;
+    /** Every Monte Carlo engine the CPU threads created, so that {@link #close()} can stop their workers. */
+    private final Set<MonteCarloEngine> monteCarloEngines = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param port             The port to listen on, or zero for any free port.
+     * @param cpuThreads       The number of threads computer players may think on.
+     * @param timeBudgetMillis How long the Search and MonteCarlo styles may think about each move.
+     */
+    public GameServer(int port, int cpuThreads, long timeBudgetMillis) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.maxSessions = DEFAULT_MAX_SESSIONS;
+        this.connections = connectionExecutor();
+        this.cpuPool = new ThreadPoolExecutor(cpuThreads, cpuThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cpuThreads * QUEUE_PER_CPU_THREAD), daemonThreads("sos-server-cpu"));
+        this.engines = ThreadLocal.withInitial(() -> new EnumMap<>(Player.PlayStyle.class));
+
+        Thread acceptor = new Thread(this::accept, "sos-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of games currently hosted.
+     */
+    public int getSessionCount() {
+        return this.sessions.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.serverSocket.close();
+        for (Connection connection : this.openConnections) {
+            connection.close();
+        }
+        this.connections.shutdownNow();
+        this.cpuPool.shutdownNow();
+        for (MonteCarloEngine engine : this.monteCarloEngines) {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * @return An executor running each task on a new virtual thread where the runtime supports them, and on a new
+     *         platform thread otherwise.
+     */
+    static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreads("sos-server-connection"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void accept() {
+        while (!this.closed) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                this.openConnections.add(connection);
+                this.connections.execute(connection::serve);
+            } catch (IOException | RejectedExecutionException e) {
+                if (!this.closed) e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * One hosted game. Its board is only touched with {@link #lock} held.
+     */
+    private static final class Session {
+        final long id;
+        final Board board;
+        final Player.PlayStyle[] styles;
+        final ReentrantLock lock = new ReentrantLock();
+        final CopyOnWriteArrayList<Connection> subscribers = new CopyOnWriteArrayList<>();
+        /** True while a computer move is queued or being searched for. Guarded by {@link #lock}. */
+        boolean thinking;
+
+        Session(long id, int size, Board.GameMode mode, Player.PlayStyle playerOne, Player.PlayStyle playerTwo) {
+            this.id = id;
+            // The board's own players stay Human, so that it never searches on a connection thread.
+            this.board = new Board(size);
+            this.board.setGameMode(mode);
+            this.styles = new Player.PlayStyle[]{playerOne, playerTwo};
+        }
+
+        int side() {
+            return this.board.getTurn() == this.board.playerOne ? Position.PLAYER_ONE : Position.PLAYER_TWO;
+        }
+
+        boolean isOver() {
+            Board.State state = this.board.getGameState();
+            return this.board.isFull() || state == Board.State.PLAYER_ONE_WON || state == Board.State.PLAYER_TWO_WON
+                    || state == Board.State.DRAW;
+        }
+    }
+
+    private final class Connection {
+        final Socket socket;
+        final Set<Session> subscriptions = ConcurrentHashMap.newKeySet();
+        /** The ids of the games this connection created, which only it may close. */
+        final Set<Long> owned = ConcurrentHashMap.newKeySet();
+        /** Lines waiting for the writer thread; {@link #queued} counts them, since the queue itself is unbounded. */
+        final LinkedBlockingQueue<String> outbox = new LinkedBlockingQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void serve() {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8))) {
+                Writer out = new BufferedWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+                connections.execute(() -> write(out));
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    String reply = handle(this, line.trim());
+                    if (reply == null) {
+                        break;
+                    }
+                    send(reply);
+                }
+            } catch (SocketException e) {
+                // The client went away.
+            } catch (IOException e) {
+                if (!closed) e.printStackTrace();
+            } catch (RejectedExecutionException e) {
+                // The server is closing.
+            }
+            // Let the writer send the replies still queued; it closes the connection when it gets here.
+            this.outbox.add(HANG_UP);
+        }
+
+        /**
+         * Writes the queued lines, in order, until the connection hangs up.
+         */
+        private void write(Writer out) {
+            try {
+                for (String line = this.outbox.take(); line != HANG_UP; line = this.outbox.take()) {
+                    this.queued.decrementAndGet();
+                    out.write(line);
+                    out.write('\n');
+                    if (this.outbox.isEmpty()) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            } catch (IOException | InterruptedException e) {
+                // The client went away, or the server is closing.
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Queues one line for the writer thread, so the caller never waits on the socket. Replies and events from
+         * other games' threads may interleave, but never within a line.
+         */
+        void send(String line) {
+            if (this.queued.incrementAndGet() > OUTBOX_CAPACITY) {
+                close();
+                return;
+            }
+            this.outbox.add(line);
+        }
+
+        /**
+         * Unsubscribes from every game and ends the games this connection created, since no one else may close them.
+         */
+        void close() {
+            for (Session session : this.subscriptions) {
+                session.subscribers.remove(this);
+            }
+            this.subscriptions.clear();
+            for (Long id : this.owned) {
+                sessions.remove(id);
+            }
+            this.owned.clear();
+            openConnections.remove(this);
+            this.outbox.add(HANG_UP);
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                // Already closed.
+            }
+        }
+    }
+
+    /**
+     * @return The reply to the request, or null to close the connection.
+     */
+    private String handle(Connection connection, String line) {
+        String[] words = line.split("\\s+");
+        try {
+            switch (words[0].toUpperCase(Locale.ROOT)) {
+                case "NEW": return newSession(connection, words);
+                case "MOVE": return move(words);
+                case "STATE": return state(session(words));
+                case "GO": {
+                    Session session = session(words);
+                    scheduleComputerMove(session);
+                    return "OK";
+                }
+                case "SUBSCRIBE": {
+                    Session session = session(words);
+                    session.subscribers.addIfAbsent(connection);
+                    connection.subscriptions.add(session);
+                    return "OK";
+                }
+                case "UNSUBSCRIBE": {
+                    Session session = session(words);
+                    session.subscribers.remove(connection);
+                    connection.subscriptions.remove(session);
+                    return "OK";
+                }
+                case "CLOSE": {
+                    Session session = session(words);
+                    if (!connection.owned.remove(session.id)) {
+                        throw new IllegalArgumentException(String.format("Game %s belongs to another connection.", session.id));
+                    }
+                    this.sessions.remove(session.id);
+                    return "OK";
+                }
+                case "QUIT": return null;
+                default: return String.format("ERROR Unknown command %s.", words[0]);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return String.format("ERROR %s", e.getMessage());
+        }
+    }
+
+    private String newSession(Connection connection, String[] words) {
+        if (words.length != 3 && words.length != 5) {
+            throw new IllegalArgumentException("Usage: NEW size Simple|General [playerOneStyle playerTwoStyle].");
+        }
+        int size = Integer.parseInt(words[1]);
+        if (size < Board.MIN_BOARD_SIZE || size > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException(String.format("Board size must be from %s to %s.", Board.MIN_BOARD_SIZE, MAX_BOARD_SIZE));
+        }
+        Board.GameMode mode = Board.GameMode.valueOf(words[2]);
+        Player.PlayStyle playerOne = words.length == 5 ? Player.PlayStyle.valueOf(words[3]) : Player.PlayStyle.Human;
+        Player.PlayStyle playerTwo = words.length == 5 ? Player.PlayStyle.valueOf(words[4]) : Player.PlayStyle.Human;
+        if (this.sessions.size() >= this.maxSessions) {
+            throw new IllegalArgumentException("The server is hosting as many games as it can.");
+        }
+
+        Session session = new Session(this.nextId.getAndIncrement(), size, mode, playerOne, playerTwo);
+        this.sessions.put(session.id, session);
+        connection.owned.add(session.id);
+        scheduleComputerMove(session);
+        return String.format("OK %s", session.id);
+    }
+
+    private String move(String[] words) {
+        if (words.length != 5) {
+            throw new IllegalArgumentException("Usage: MOVE id row column S|O.");
+        }
+        Session session = session(words);
+        int row = Integer.parseInt(words[2]);
+        int column = Integer.parseInt(words[3]);
+        TileValue tile = TileValue.valueOf(words[4].toUpperCase(Locale.ROOT));
+        if (tile == TileValue.None) {
+            throw new IllegalArgumentException("Tile must be S or O.");
+        }
+
+        BoardSnapshot snapshot;
+        session.lock.lock();
+        try {
+            Board board = session.board;
+            if (session.isOver()) {
+                throw new IllegalArgumentException("The game is over.");
+            }
+            if (session.styles[session.side()] != Player.PlayStyle.Human) {
+                throw new IllegalArgumentException("It is a computer player's turn.");
+            }
+            if (row < 0 || row >= board.getBoardSize() || column < 0 || column >= board.getBoardSize()
+                    || board.getTile(row, column).getValue() != TileValue.None) {
+                throw new IllegalArgumentException(String.format("Cell (%s,%s) is not free.", row, column));
+            }
+            board.getTurn().setTile(tile);
+            board.makeMove(row, column);
+            snapshot = board.snapshot();
+        } finally {
+            session.lock.unlock();
+        }
+        publish(session, snapshot);
+        scheduleComputerMove(session);
+        return format(session.id, snapshot, "STATE");
+    }
+
+    private String state(Session session) {
+        BoardSnapshot snapshot;
+        session.lock.lock();
+        try {
+            snapshot = session.board.snapshot();
+        } finally {
+            session.lock.unlock();
+        }
+        return format(session.id, snapshot, "STATE");
+    }
+
+    private Session session(String[] words) {
+        if (words.length < 2) {
+            throw new IllegalArgumentException("Missing game id.");
+        }
+        Session session = this.sessions.get(Long.parseLong(words[1]));
+        if (session == null) {
+            throw new IllegalArgumentException(String.format("No game %s.", words[1]));
+        }
+        return session;
+    }
+
+    /**
+     * Queues a move for the player to move if it is a computer, unless one is already queued.
+     */
+    private void scheduleComputerMove(Session session) {
+        session.lock.lock();
+        try {
+            if (session.thinking || session.isOver() || session.styles[session.side()] == Player.PlayStyle.Human) {
+                return;
+            }
+            session.thinking = true;
+        } finally {
+            session.lock.unlock();
+        }
+        try {
+            this.cpuPool.execute(() -> computerMove(session));
+        } catch (RejectedExecutionException e) {
+            session.lock.lock();
+            try {
+                session.thinking = false;
+            } finally {
+                session.lock.unlock();
+            }
+            for (Connection subscriber : session.subscribers) {
+                subscriber.send(String.format("BUSY %s", session.id));
+            }
+        }
+    }
+
+    private void computerMove(Session session) {
+        Position position;
+        Player.PlayStyle style;
+        session.lock.lock();
+        try {
+            position = session.board.toPosition();
+            style = session.styles[session.side()];
+        } finally {
+            session.lock.unlock();
+        }
+
+        long start = System.nanoTime();
+        int move;
+        if (style == Player.PlayStyle.Search || style == Player.PlayStyle.MonteCarlo) {
+            move = this.engines.get().computeIfAbsent(style, this::createEngine).bestMove(position);
+        } else {
+            move = position.getThreats().greedyMove(position.getEmptyCells(), ThreadLocalRandom.current());
+        }
+        BoardMetrics.getDefault().recordComputerMove(System.nanoTime() - start);
+
+        BoardSnapshot snapshot;
+        session.lock.lock();
+        try {
+            // Human moves are refused while a computer player is to move, so the board is still as it was searched.
+            session.thinking = false;
+            int cell = Position.moveCell(move);
+            session.board.getTurn().setTile(Position.moveTile(move));
+            session.board.makeMove(cell / session.board.getBoardSize(), cell % session.board.getBoardSize());
+            snapshot = session.board.snapshot();
+        } finally {
+            session.lock.unlock();
+        }
+        publish(session, snapshot);
+        scheduleComputerMove(session);
+    }
+
+    private Engine createEngine(Player.PlayStyle style) {
+        // Each CPU thread owns its engines; a Monte Carlo search gets one worker, since games already run in parallel.
+        if (style == Player.PlayStyle.Search) {
+            SearchEngine search = new SearchEngine(1 << 16, this.timeBudgetMillis);
+            search.setTablebases(Tablebase::find);
+            return search;
+        }
+        MonteCarloEngine engine = new MonteCarloEngine(1, this.timeBudgetMillis);
+        this.monteCarloEngines.add(engine);
+        if (this.closed) {
+            // The server closed while this thread was starting a move.
+            engine.shutdown();
+        }
+        return engine;
+    }
+
+    private static void publish(Session session, BoardSnapshot snapshot) {
+        if (session.subscribers.isEmpty()) {
+            return;
+        }
+        String event = format(session.id, snapshot, "EVENT");
+        for (Connection subscriber : session.subscribers) {
+            subscriber.send(event);
+        }
+    }
+
+    private static String format(long id, BoardSnapshot snapshot, String kind) {
+        int size = snapshot.getBoardSize();
+        StringBuilder line = new StringBuilder(48 + size * size);
+        line.append(kind).append(' ').append(id).append(' ').append(size).append(' ').append(snapshot.getGameMode())
+                .append(' ').append(snapshot.getGameState()).append(' ').append(snapshot.getSide() + 1)
+                .append(' ').append(snapshot.getPoints(Position.PLAYER_ONE))
+                .append(' ').append(snapshot.getPoints(Position.PLAYER_TWO)).append(' ');
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                TileValue value = snapshot.getTile(row, column).getValue();
+                line.append(value == TileValue.S ? 'S' : value == TileValue.O ? 'O' : '.');
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Usage: {@code GameServer [--port N] [--cpu N] [--budget MS]}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 4040;
+        int cpu = Runtime.getRuntime().availableProcessors();
+        long budget = 10;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(value); break;
+                case "--cpu": cpu = Integer.parseInt(value); break;
+                case "--budget": budget = Long.parseLong(value); break;
+                default:
+                    System.out.println(String.format("Error: Unknown option %s.", args[i]));
+                    return;
+            }
+        }
+
+        BoardMetrics.register();
+        GameServer server = new GameServer(port, cpu, budget);
+        System.out.println(String.format("Listening on port %s with %s CPU threads.", server.getPort(), cpu));
+        Thread.currentThread().join();
+    }
+}
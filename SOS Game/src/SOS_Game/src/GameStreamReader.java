@@ -0,0 +1,119 @@
+package SOS_Game.src;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the moves of a text {@code .sos} recording one line at a time.
+ * <p>
+ * Only the current line is held in memory, so recordings of any length can be walked in constant space, either as an
+ * {@link Iterator} or as a {@link Stream}. The board size and game mode are read from the lines before the first move,
+ * and are known as soon as the reader has been constructed.
+ */
+public class GameStreamReader implements Iterator<GameReader.Move>, Closeable {
+    static final Pattern MOVE_PATTERN = Pattern.compile(
+            "Player (?<Player>[12]) \\((?<Tile>[SO]), (?<Style>Human|Computer|Search|MonteCarlo)\\): \\((?<Row>(\\d+)),(?<Column>(\\d+))\\)");
+    static final Pattern INITIALIZE_PATTERN = Pattern.compile("Board has been initialized at size (?<size>\\d+).");
+    static final Pattern MODE_PATTERN = Pattern.compile("Game mode has been switched to (?<mode>\\w+).");
+
+    private final BufferedReader reader;
+    private final Matcher moveMatcher = MOVE_PATTERN.matcher("");
+    private final Matcher initializeMatcher = INITIALIZE_PATTERN.matcher("");
+    private final Matcher modeMatcher = MODE_PATTERN.matcher("");
+    private GameReader.Move next;
+    private int boardSize;
+    private Board.GameMode gameMode;
+
+    public GameStreamReader(File file) throws FileNotFoundException {
+        this(new FileReader(file));
+    }
+
+    public GameStreamReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.next = advance();
+    }
+
+    public int getBoardSize() {
+        return this.boardSize;
+    }
+
+    /**
+     * @return The game mode the recording was switched to, or null if it was never switched.
+     */
+    public Board.GameMode getGameMode() {
+        return this.gameMode;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    @Override
+    public GameReader.Move next() {
+        if (this.next == null) {
+            throw new NoSuchElementException();
+        }
+        GameReader.Move move = this.next;
+        this.next = advance();
+        return move;
+    }
+
+    /**
+     * @return The remaining moves as a sequential stream. Closing the stream closes this reader.
+     */
+    public Stream<GameReader.Move> stream() {
+        Spliterator<GameReader.Move> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    /**
+     * Reads lines up to and including the next move, noting the board size and game mode on the way.
+     *
+     * @return The next move, or null at the end of the recording.
+     */
+    private GameReader.Move advance() {
+        try {
+            for (String line = this.reader.readLine(); line != null; line = this.reader.readLine()) {
+                if (this.moveMatcher.reset(line).find()) {
+                    return new GameReader.Move(this.moveMatcher.group("Player"), this.moveMatcher.group("Tile"),
+                            this.moveMatcher.group("Style"), Integer.parseInt(this.moveMatcher.group("Row")),
+                            Integer.parseInt(this.moveMatcher.group("Column")));
+                } else if (this.initializeMatcher.reset(line).find()) {
+                    this.boardSize = Integer.parseInt(this.initializeMatcher.group("size"));
+                } else if (this.modeMatcher.reset(line).find()) {
+                    this.gameMode = "Simple".equals(this.modeMatcher.group("mode")) ? Board.GameMode.Simple : Board.GameMode.General;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,49 +1,110 @@
 package SOS_Game.src;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
-public class GameWriter {
-    private final String filename;
+/**
+ * Records a game in the text format, appending to the recording's file as the game is played.
+ * <p>
+ * Until the first move is recorded the text is only buffered, so games that are never recorded leave no file. From
+ * then on every move and message is handed to the shared {@link AsyncFileAppender} as soon as it is written, so the
+ * game thread never waits for the disk and a crash loses at most what the I/O thread had not yet written.
+ */
+public class GameWriter implements GameRecorder {
+    private static String lastName;
+    private static int sequence;
+
+    /** Null until the recording starts for a recording named after the time it started. */
+    private File destination;
     private final StringBuilder buffer;
-    private FileWriter writer;
+    private AsyncFileAppender.Handle file;
+    private boolean closed;
 
     public GameWriter() {
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH:mm:ss");
-        LocalDateTime now = LocalDateTime.now();
-        this.filename = String.format("%s.sos", dtf.format(now));
+        this(null);
+    }
+
+    /**
+     * @param destination The file to append the recording to.
+     */
+    public GameWriter(File destination) {
+        this.destination = destination;
         this.buffer = new StringBuilder();
     }
 
+    /**
+     * @return A recording file name made of the current date and time and the given extension. Names handed out
+     *         within the same millisecond get a sequence number, so no two recordings of this process share a file.
+     */
+    static synchronized String timestampedName(String extension) {
+        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH:mm:ss.SSS");
+        String name = dtf.format(LocalDateTime.now());
+        sequence = name.equals(lastName) ? sequence + 1 : 0;
+        lastName = name;
+        return sequence == 0 ? String.format("%s.%s", name, extension) : String.format("%s-%s.%s", name, sequence, extension);
+    }
+
+    /**
+     * @return The file a recording with the given name is appended to.
+     */
+    static File recordingFile(String filename) {
+        return new File(String.format("%s/recorded/%s", System.getProperty("user.dir"), filename));
+    }
+
+    @Override
     public void writeMove(int row, int column, Player player) {
-        this.buffer.append(String.format("%s: (%s,%s)\n", player, row, column));
+        this.buffer.append(player).append(": (").append(row).append(',').append(column).append(")\n");
+        if (this.file == null && !this.closed) {
+            this.file = start();
+        }
+        flush();
     }
 
+    @Override
     public void writeMessage(String s) {
         this.buffer.append(s);
+        flush();
     }
 
+    @Override
     public void clearBuffer() {
         this.buffer.setLength(0);
     }
 
+    @Override
     public void writeToFile() {
-        try {
-            File path = new File(String.format("%s/recorded/", System.getProperty("user.dir")));
-            File file = new File(path + "/" + filename);
-            this.writer = new FileWriter(file);
-            this.writer.write(String.valueOf(this.buffer));
-            this.writer.flush();
-            this.writer.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (this.file == null && !this.closed) {
+            this.file = start();
         }
+        close();
     }
 
-    protected void finalize() throws IOException {
-        this.writer.flush();
-        this.writer.close();
+    @Override
+    public void close() {
+        flush();
+        if (this.file != null) {
+            this.file.close();
+            this.file = null;
+        }
+        this.closed = true;
+    }
+
+    private AsyncFileAppender.Handle start() {
+        if (this.destination == null) {
+            this.destination = recordingFile(timestampedName("sos"));
+        }
+        return AsyncFileAppender.getDefault().open(this.destination);
+    }
+
+    /**
+     * Hands the buffered text to the I/O thread once the recording has a file.
+     */
+    private void flush() {
+        if (this.file == null || this.buffer.length() == 0) {
+            return;
+        }
+        this.file.append(this.buffer.toString().getBytes(StandardCharsets.UTF_8));
+        this.buffer.setLength(0);
     }
-}
\ No newline at end of file
+}
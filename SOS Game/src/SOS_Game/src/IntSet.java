@@ -0,0 +1,131 @@
+package SOS_Game.src;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressed hash set of non-negative ints.
+ * <p>
+ * Keys are stored unboxed in a single power-of-two table with linear probing, so adding, finding and removing a key
+ * never allocates except when the table grows.
+ */
+public class IntSet {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] table;
+    private int size;
+
+    public IntSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.table = new int[capacity];
+        Arrays.fill(this.table, EMPTY);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean contains(int key) {
+        assert (key >= 0) : String.format("IntSet key %s must not be negative.", key);
+        int mask = this.table.length - 1;
+        for (int slot = mix(key) & mask; this.table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.table[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the key was added, false if it was already present.
+     */
+    public boolean add(int key) {
+        assert (key >= 0) : String.format("IntSet key %s must not be negative.", key);
+        int mask = this.table.length - 1;
+        int slot = mix(key) & mask;
+        while (this.table[slot] != EMPTY) {
+            if (this.table[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.table[slot] = key;
+        if (++this.size * 2 > this.table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the key was removed, false if it was not present.
+     */
+    public boolean remove(int key) {
+        int mask = this.table.length - 1;
+        int slot = mix(key) & mask;
+        while (this.table[slot] != key) {
+            if (this.table[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift later members of the probe run back so no lookup stops early at the hole.
+        int hole = slot;
+        for (int next = (hole + 1) & mask; this.table[next] != EMPTY; next = (next + 1) & mask) {
+            int home = mix(this.table[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.table[hole] = this.table[next];
+                hole = next;
+            }
+        }
+        this.table[hole] = EMPTY;
+        this.size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(this.table, EMPTY);
+        this.size = 0;
+    }
+
+    /**
+     * @return The keys of this set in no particular order.
+     */
+    public int[] toArray() {
+        int[] keys = new int[this.size];
+        int i = 0;
+        for (int key : this.table) {
+            if (key != EMPTY) {
+                keys[i++] = key;
+            }
+        }
+        return keys;
+    }
+
+    private void grow() {
+        int[] old = this.table;
+        this.table = new int[old.length * 2];
+        Arrays.fill(this.table, EMPTY);
+        this.size = 0;
+        for (int key : old) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
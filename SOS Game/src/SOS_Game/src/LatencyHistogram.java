@@ -0,0 +1,173 @@
+package SOS_Game.src;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram of non-negative values, such as latencies in nanoseconds, in the spirit of HdrHistogram.
+ * <p>
+ * Values below 128 are counted exactly. Above that, every power of two is split into 64 equal buckets, so a value is
+ * reported to within 1/64 (about 1.6%) of what was recorded, and the whole range of a {@code long} fits in a few
+ * thousand counters. Recording is a shift and an increment and never allocates. A histogram is not thread-safe: give
+ * each thread its own and {@link #add(LatencyHistogram) add} them together afterwards.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long max;
+    private long min = Long.MAX_VALUE;
+    private double sum;
+    private double sumOfSquares;
+
+    public void record(long value) {
+        assert (value >= 0) : String.format("Histogram value %s must not be negative.", value);
+        this.counts[index(value)]++;
+        this.totalCount++;
+        this.max = Math.max(this.max, value);
+        this.min = Math.min(this.min, value);
+        this.sum += value;
+        this.sumOfSquares += (double) value * value;
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.totalCount += other.totalCount;
+        this.max = Math.max(this.max, other.max);
+        this.min = Math.min(this.min, other.min);
+        this.sum += other.sum;
+        this.sumOfSquares += other.sumOfSquares;
+    }
+
+    /**
+     * Adds the counts and sums drained from a {@link LatencyRecorder}.
+     */
+    void add(long[] counts, long max, long min, double sum, double sumOfSquares) {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts[i] += counts[i];
+            this.totalCount += counts[i];
+        }
+        this.max = Math.max(this.max, max);
+        this.min = Math.min(this.min, min);
+        this.sum += sum;
+        this.sumOfSquares += sumOfSquares;
+    }
+
+    public void reset() {
+        Arrays.fill(this.counts, 0L);
+        this.totalCount = 0;
+        this.max = 0;
+        this.min = Long.MAX_VALUE;
+        this.sum = 0;
+        this.sumOfSquares = 0;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    public long getMin() {
+        return this.totalCount == 0 ? 0 : this.min;
+    }
+
+    public double getMean() {
+        return this.totalCount == 0 ? 0 : this.sum / this.totalCount;
+    }
+
+    public double getStdDeviation() {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, this.sumOfSquares / this.totalCount - mean * mean));
+    }
+
+    /**
+     * @param percentile From 0 to 100.
+     * @return The highest value in the bucket holding the given percentile of the recorded values, capped at the
+     *         largest value recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return Math.min(highestValue(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Prints the percentile distribution in the text format of HdrHistogram's {@code outputPercentileDistribution},
+     * so the output can be fed to the usual HdrHistogram plotting tools.
+     *
+     * @param scalingRatio Recorded values are divided by this before printing, e.g. 1e6 to print nanoseconds as
+     *                     milliseconds.
+     */
+    public void outputPercentileDistribution(PrintStream out, double scalingRatio) {
+        out.println(String.format("%12s %14s %10s %14s", "Value", "Percentile", "TotalCount", "1/(1-Percentile)"));
+        out.println();
+        if (this.totalCount > 0) {
+            // Five reporting ticks for every halving of the distance to the 100th percentile, as HdrHistogram does.
+            for (int half = 0; ; half++) {
+                double base = 100.0 * (1 - Math.pow(0.5, half));
+                double tick = 100.0 * Math.pow(0.5, half + 1) / 5;
+                boolean done = false;
+                for (int k = 0; k < 5 && !done; k++) {
+                    double percentile = base + k * tick;
+                    long value = getValueAtPercentile(percentile);
+                    long count = countAtOrBelow(value);
+                    double fraction = percentile / 100.0;
+                    out.println(String.format("%12.3f %2.12f %10d %14.2f", value / scalingRatio, fraction, count, 1 / (1 - fraction)));
+                    done = value >= this.max;
+                }
+                if (done) {
+                    break;
+                }
+            }
+            out.println(String.format("%12.3f %2.12f %10d", this.max / scalingRatio, 1.0, this.totalCount));
+        }
+        out.println(String.format("#[Mean    = %12.3f, StdDeviation   = %12.3f]", getMean() / scalingRatio, getStdDeviation() / scalingRatio));
+        out.println(String.format("#[Max     = %12.3f, Total count    = %12d]", this.max / scalingRatio, this.totalCount));
+        out.println(String.format("#[Buckets = %12d, SubBuckets     = %12d]", 64 - SUB_BUCKET_BITS, SUB_BUCKETS));
+    }
+
+    private long countAtOrBelow(long value) {
+        long count = 0;
+        for (int i = 0; i <= index(value); i++) {
+            count += this.counts[i];
+        }
+        return count;
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index - shift * SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package SOS_Game.src;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Records values from any number of threads into the buckets of a {@link LatencyHistogram}, in the manner of
+ * HdrHistogram's {@code Recorder}: writers never lock or allocate, and a reader drains everything recorded since it
+ * last did with {@link #getIntervalHistogram()}.
+ * <p>
+ * The buckets are striped by thread, so threads on different cores seldom touch the same cache line, and a record is
+ * an atomic increment plus a few adder updates. A value recorded while the interval is being drained is counted in
+ * either that interval or the next, never both; only the extremes and sums of the values around the boundary may land
+ * in the other interval than their counts.
+ */
+public class LatencyRecorder {
+    private final AtomicLongArray[] stripes;
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final DoubleAdder sum = new DoubleAdder();
+    private final DoubleAdder sumOfSquares = new DoubleAdder();
+
+    public LatencyRecorder() {
+        int stripes = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+        this.stripes = new AtomicLongArray[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        }
+    }
+
+    public void record(long value) {
+        assert (value >= 0) : String.format("Recorder value %s must not be negative.", value);
+        int stripe = (int) Thread.currentThread().getId() & (this.stripes.length - 1);
+        this.stripes[stripe].incrementAndGet(LatencyHistogram.index(value));
+        this.max.accumulate(value);
+        this.min.accumulate(value);
+        this.sum.add(value);
+        this.sumOfSquares.add((double) value * value);
+    }
+
+    /**
+     * @return A new histogram of the values recorded since the last call, or since the recorder was created.
+     */
+    public LatencyHistogram getIntervalHistogram() {
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        for (AtomicLongArray stripe : this.stripes) {
+            for (int i = 0; i < counts.length; i++) {
+                if (stripe.get(i) != 0) {
+                    counts[i] += stripe.getAndSet(i, 0);
+                }
+            }
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.add(counts, this.max.getThenReset(), this.min.getThenReset(), this.sum.sumThenReset(),
+                this.sumOfSquares.sumThenReset());
+        return histogram;
+    }
+}
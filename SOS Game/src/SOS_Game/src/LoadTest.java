@@ -0,0 +1,277 @@
+package SOS_Game.src;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Load generator for {@link GameServer}: many simulated clients play games over loopback while the latency of every
+ * move is recorded.
+ * <p>
+ * Each client holds one connection and plays one game after another, each move a round trip timed from just before
+ * the request is written to just after its reply is read. A run sweeps every board size and game mode asked for, with
+ * all clients playing the same size and mode for the length of a phase, and reports p50, p99 and p99.9 move latency
+ * and the sustained moves per second of each phase, followed by its latency distribution in HdrHistogram's text
+ * format, in milliseconds. Clients are closed-loop, sending their next move as soon as the last is answered, so the
+ * latencies are those seen under the throughput reached rather than at a fixed request rate.
+ * <p>
+ * Usage: {@code LoadTest [--clients N] [--seconds N] [--sizes MIN-MAX] [--modes Simple,General] [--scripted]
+ * [--port N] [--cpu N] [--seed N] [--histograms FILE]}. Without {@code --port} a server is started in-process.
+ */
+public class LoadTest {
+    private final int port;
+    private final int clients;
+    private final long phaseNanos;
+    private final boolean scripted;
+    private long seed = System.nanoTime();
+
+    /**
+     * @param port     The port of a running server on this machine.
+     * @param clients  The number of simulated clients, each with its own connection.
+     * @param seconds  How long each phase of the sweep lasts.
+     * @param scripted True to fill boards in row-major order with alternating tiles, false to play random moves.
+     */
+    public LoadTest(int port, int clients, double seconds, boolean scripted) {
+        this.port = port;
+        this.clients = clients;
+        this.phaseNanos = (long) (seconds * 1e9);
+        this.scripted = scripted;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Runs one phase: every client plays games of the given size and mode until the phase ends.
+     */
+    public Result run(int boardSize, Board.GameMode mode) throws IOException, InterruptedException {
+        ExecutorService threads = GameServer.connectionExecutor();
+        SplittableRandom seeds = new SplittableRandom(this.seed);
+        CountDownLatch connected = new CountDownLatch(this.clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> futures = new ArrayList<>(this.clients);
+        for (int i = 0; i < this.clients; i++) {
+            SplittableRandom random = seeds.split();
+            futures.add(threads.submit(() -> {
+                Client client;
+                try {
+                    client = new Client(this.port, random);
+                } finally {
+                    connected.countDown();
+                }
+                try (client) {
+                    start.await();
+                    return client.play(boardSize, mode, System.nanoTime() + this.phaseNanos);
+                }
+            }));
+        }
+
+        connected.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        Result total = new Result(boardSize, mode);
+        try {
+            for (Future<Result> future : futures) {
+                total.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Simulated client failed.", e.getCause());
+        } finally {
+            threads.shutdownNow();
+        }
+        total.elapsedNanos = System.nanoTime() - begin;
+        return total;
+    }
+
+    /**
+     * Moves and latencies of one phase.
+     */
+    public static class Result {
+        private final int boardSize;
+        private final Board.GameMode mode;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long games;
+        private long elapsedNanos;
+
+        private Result(int boardSize, Board.GameMode mode) {
+            this.boardSize = boardSize;
+            this.mode = mode;
+        }
+
+        private void add(Result other) {
+            this.latency.add(other.latency);
+            this.games += other.games;
+        }
+
+        public LatencyHistogram getLatency() {
+            return this.latency;
+        }
+
+        public long getMoves() {
+            return this.latency.getTotalCount();
+        }
+
+        public long getGames() {
+            return this.games;
+        }
+
+        public double getMovesPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : getMoves() * 1e9 / this.elapsedNanos;
+        }
+
+        public String toString() {
+            return String.format("%sx%s %-7s %9s moves %7s games %10.0f moves/s  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  max %8.3f ms",
+                    this.boardSize, this.boardSize, this.mode, getMoves(), this.games, getMovesPerSecond(),
+                    this.latency.getValueAtPercentile(50) / 1e6, this.latency.getValueAtPercentile(99) / 1e6,
+                    this.latency.getValueAtPercentile(99.9) / 1e6, this.latency.getMax() / 1e6);
+        }
+    }
+
+    /**
+     * One simulated client. It keeps the board of its current game from the server's replies, so that it only picks
+     * free cells.
+     */
+    private final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+        private final SplittableRandom random;
+
+        Client(int port, SplittableRandom random) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.random = random;
+        }
+
+        Result play(int boardSize, Board.GameMode mode, long deadline) throws IOException {
+            Result result = new Result(boardSize, mode);
+            int cells = boardSize * boardSize;
+            int[] free = new int[cells];
+            while (System.nanoTime() < deadline) {
+                String id = expect(request(String.format("NEW %s %s", boardSize, mode)), "OK ").substring(3);
+                for (int cell = 0; cell < cells; cell++) {
+                    free[cell] = cell;
+                }
+                boolean over = false;
+                for (int turn = 0; !over && turn < cells; turn++) {
+                    int cell;
+                    char tile;
+                    if (scripted) {
+                        cell = turn;
+                        tile = turn % 2 == 0 ? 'S' : 'O';
+                    } else {
+                        int pick = this.random.nextInt(cells - turn);
+                        cell = free[pick];
+                        free[pick] = free[cells - turn - 1];
+                        tile = this.random.nextBoolean() ? 'S' : 'O';
+                    }
+
+                    long sent = System.nanoTime();
+                    String state = expect(request(String.format("MOVE %s %s %s %s", id, cell / boardSize, cell % boardSize, tile)), "STATE ");
+                    result.latency.record(System.nanoTime() - sent);
+                    String gameState = state.split(" ", 6)[4];
+                    over = !gameState.equals("PLAYING") && !gameState.equals("INIT");
+                }
+                expect(request(String.format("CLOSE %s", id)), "OK");
+                result.games++;
+            }
+            return result;
+        }
+
+        private String request(String line) throws IOException {
+            this.out.write(line);
+            this.out.write('\n');
+            this.out.flush();
+            String reply = this.in.readLine();
+            if (reply == null) {
+                throw new IOException("Server closed the connection.");
+            }
+            return reply;
+        }
+
+        private String expect(String reply, String prefix) throws IOException {
+            if (!reply.startsWith(prefix)) {
+                throw new IOException(String.format("Unexpected reply: %s", reply));
+            }
+            return reply;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.socket.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = 1000;
+        double seconds = 5;
+        int minSize = Board.MIN_BOARD_SIZE;
+        int maxSize = GUI.MAX_BOARD_SIZE;
+        String modes = "Simple,General";
+        boolean scripted = false;
+        Integer port = null;
+        int cpu = Runtime.getRuntime().availableProcessors();
+        Long seed = null;
+        String histograms = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Double.parseDouble(args[++i]); break;
+                case "--sizes": {
+                    String[] range = args[++i].split("-");
+                    minSize = Integer.parseInt(range[0]);
+                    maxSize = Integer.parseInt(range[range.length - 1]);
+                    break;
+                }
+                case "--modes": modes = args[++i]; break;
+                case "--scripted": scripted = true; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--cpu": cpu = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--histograms": histograms = args[++i]; break;
+                default:
+                    System.out.println(String.format("Error: Unknown option %s.", args[i]));
+                    return;
+            }
+        }
+
+        GameServer server = port == null ? new GameServer(0, cpu, 10) : null;
+        LoadTest test = new LoadTest(port == null ? server.getPort() : port, clients, seconds, scripted);
+        if (seed != null) test.setSeed(seed);
+        PrintStream distribution = histograms == null ? System.out : new PrintStream(new FileOutputStream(histograms), true, "UTF-8");
+        System.out.println(String.format("%s %s clients, %s s per phase.", clients, scripted ? "scripted" : "random", seconds));
+        try {
+            for (String mode : modes.split(",")) {
+                for (int size = minSize; size <= maxSize; size++) {
+                    Result result = test.run(size, Board.GameMode.valueOf(mode));
+                    System.out.println(result);
+                    distribution.println(String.format("# %sx%s %s move latency (ms)", size, size, mode));
+                    result.getLatency().outputPercentileDistribution(distribution, 1e6);
+                    distribution.println();
+                }
+            }
+        } finally {
+            if (distribution != System.out) distribution.close();
+            if (server != null) server.close();
+        }
+    }
+}
@@ -17,10 +17,19 @@ public class Match implements Comparable<Match> {
 
     @Override
     public int compareTo(Match other) {
-        if (this.first.compareTo(other.first) == 0 && this.second.compareTo(other.second) == 0 && this.third.compareTo(other.third) == 0) {
-            return 0;
-        } else {
-            return -1;
-        }
+        int result = this.first.compareTo(other.first);
+        if (result == 0) result = this.second.compareTo(other.second);
+        if (result == 0) result = this.third.compareTo(other.third);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Match && this.compareTo((Match) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * this.first.hashCode() + this.second.hashCode()) + this.third.hashCode();
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+package SOS_Game.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo Tree Search, used by the {@link Player.PlayStyle#MonteCarlo} play style on boards too large to search
+ * exhaustively.
+ * <p>
+ * The search is root-parallel: every worker thread grows its own UCT tree from a private {@link Position} copy until
+ * the time budget runs out, and the visit counts of the root moves are then summed across workers. Workers share
+ * nothing while searching, so the number of playouts grows with the number of cores. Playouts make uniformly random
+ * moves on the worker's position and take them back afterwards, so an iteration allocates only the tree node it adds.
+ */
+public class MonteCarloEngine implements Engine {
+    private static final long DEFAULT_TIME_BUDGET_MS = 100;
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    private static MonteCarloEngine shared;
+
+    private final int threads;
+    private final long timeBudgetNanos;
+    private final ExecutorService pool;
+    private final SplittableRandom seeds;
+    /** Written by whichever thread's search finished last, since several threads may share the engine. */
+    private volatile long lastPlayouts;
+
+    public MonteCarloEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TIME_BUDGET_MS);
+    }
+
+    /**
+     * @param threads          The number of worker threads to search with.
+     * @param timeBudgetMillis How long {@link #bestMove(Position)} may search before returning.
+     */
+    public MonteCarloEngine(int threads, long timeBudgetMillis) {
+        assert (threads > 0);
+        this.threads = threads;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.seeds = new SplittableRandom();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sos-mcts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The engine every {@link Board} plays the MonteCarlo style with: one worker per CPU, created on first use
+     *         and never shut down. Its workers are daemon threads, so they live as long as the process and no longer,
+     *         however many boards are created or reset.
+     */
+    static synchronized MonteCarloEngine shared() {
+        if (shared == null) {
+            shared = new MonteCarloEngine();
+        }
+        return shared;
+    }
+
+    /**
+     * @return The number of playouts, across all workers, made by the last search.
+     */
+    public long getLastPlayouts() {
+        return this.lastPlayouts;
+    }
+
+    /**
+     * Searches until the time budget runs out. Several threads may search at once, sharing the workers. Interrupting
+     * the calling thread stops the workers early, in which case any legal move may be returned and the thread is left
+     * interrupted.
+     */
+    @Override
+    public int bestMove(Position position) {
+        assert (!position.isOver()) : "bestMove called on a finished position.";
+        FlightEvents.Search event = new FlightEvents.Search();
+        event.begin();
+        int[] rootMoves = legalMoves(position);
+        Arrays.sort(rootMoves);
+        long deadline = System.nanoTime() + this.timeBudgetNanos;
+
+        List<Callable<Worker>> workers = new ArrayList<>(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            SplittableRandom seed;
+            synchronized (this.seeds) {
+                seed = this.seeds.split();
+            }
+            Worker worker = new Worker(position.copy(), rootMoves, deadline, seed);
+            workers.add(() -> {
+                worker.run();
+                return worker;
+            });
+        }
+
+        long[] visits = new long[rootMoves.length];
+        long playouts = 0;
+        try {
+            for (Future<Worker> result : this.pool.invokeAll(workers)) {
+                Worker worker = result.get();
+                playouts += worker.root.visits;
+                for (Node child : worker.root.children) {
+                    visits[Arrays.binarySearch(rootMoves, child.move)] += child.visits;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Monte Carlo worker failed.", e.getCause());
+        }
+        this.lastPlayouts = playouts;
+
+        int best = 0;
+        for (int i = 1; i < rootMoves.length; i++) {
+            if (visits[i] > visits[best]) {
+                best = i;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.engine = getClass().getSimpleName();
+            event.boardSize = position.getSize();
+            event.mode = position.getMode().toString();
+            event.emptyCells = position.getEmptyCells().size();
+            event.nodes = playouts;
+            event.commit();
+        }
+        return rootMoves[best];
+    }
+
+    /**
+     * Stops the worker threads. The engine cannot be used afterwards.
+     */
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    private static int[] legalMoves(Position position) {
+        EmptyCells empty = position.getEmptyCells();
+        int[] moves = new int[2 * empty.size()];
+        for (int slot = 0; slot < empty.size(); slot++) {
+            int cell = empty.get(slot);
+            moves[2 * slot] = Position.move(cell, BoardTile.TileValue.S);
+            moves[2 * slot + 1] = Position.move(cell, BoardTile.TileValue.O);
+        }
+        return moves;
+    }
+
+    /**
+     * @return 1 if the given side won the finished position, 0.5 for a draw and 0 for a loss.
+     */
+    private static double reward(Position position, int side) {
+        int mine = position.getPoints(side);
+        int theirs = position.getPoints(side ^ 1);
+        return mine > theirs ? 1.0 : mine == theirs ? 0.5 : 0.0;
+    }
+
+    private static final class Node {
+        final Node parent;
+        final int move;
+        /** The side that made {@link #move}. */
+        final int mover;
+        final ArrayList<Node> children = new ArrayList<>();
+        int[] untried;
+        int untriedCount;
+        int visits;
+        double reward;
+
+        Node(Node parent, int move, int mover) {
+            this.parent = parent;
+            this.move = move;
+            this.mover = mover;
+        }
+
+        Node select() {
+            double logVisits = Math.log(this.visits);
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Node child : this.children) {
+                double score = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static final class Worker {
+        final Position position;
+        final Node root;
+        final long deadline;
+        final SplittableRandom random;
+        int[] played = new int[64];
+        int[] gained = new int[64];
+        int depth;
+
+        Worker(Position position, int[] rootMoves, long deadline, SplittableRandom random) {
+            this.position = position;
+            this.deadline = deadline;
+            this.random = random;
+            this.root = new Node(null, -1, position.getSide() ^ 1);
+            this.root.untried = rootMoves.clone();
+            this.root.untriedCount = rootMoves.length;
+        }
+
+        void run() {
+            do {
+                iterate();
+            } while (System.nanoTime() < this.deadline && !Thread.currentThread().isInterrupted());
+        }
+
+        private void iterate() {
+            Node node = this.root;
+            while (node.untriedCount == 0 && !node.children.isEmpty()) {
+                node = node.select();
+                play(node.move);
+            }
+
+            if (!this.position.isOver()) {
+                if (node.untried == null) {
+                    node.untried = legalMoves(this.position);
+                    node.untriedCount = node.untried.length;
+                }
+                int pick = this.random.nextInt(node.untriedCount);
+                int move = node.untried[pick];
+                node.untried[pick] = node.untried[--node.untriedCount];
+                Node child = new Node(node, move, this.position.getSide());
+                node.children.add(child);
+                play(move);
+                node = child;
+            }
+
+            while (!this.position.isOver()) {
+                EmptyCells empty = this.position.getEmptyCells();
+                int cell = empty.get(this.random.nextInt(empty.size()));
+                play(cell * 2 + this.random.nextInt(2));
+            }
+
+            double playerOneReward = reward(this.position, Position.PLAYER_ONE);
+            for (; node != null; node = node.parent) {
+                node.visits++;
+                node.reward += node.mover == Position.PLAYER_ONE ? playerOneReward : 1.0 - playerOneReward;
+            }
+
+            while (this.depth > 0) {
+                this.depth--;
+                this.position.undo(this.played[this.depth], this.gained[this.depth]);
+            }
+        }
+
+        private void play(int move) {
+            if (this.depth == this.played.length) {
+                this.played = Arrays.copyOf(this.played, this.depth * 2);
+                this.gained = Arrays.copyOf(this.gained, this.depth * 2);
+            }
+            this.played[this.depth] = move;
+            this.gained[this.depth++] = this.position.play(move);
+        }
+    }
+}
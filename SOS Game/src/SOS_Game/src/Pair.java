@@ -19,10 +19,19 @@ public class Pair implements Comparable<Pair> {
 
     @Override
     public int compareTo(Pair other) {
-        if (this.first == other.first && this.second == other.second) {
-            return 0;
-        } else {
-            return -1;
+        if (this.first != other.first) {
+            return Integer.compare(this.first, other.first);
         }
+        return Integer.compare(this.second, other.second);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Pair && this.compareTo((Pair) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.first + this.second;
     }
 }
\ No newline at end of file
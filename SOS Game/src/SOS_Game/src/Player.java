@@ -44,11 +44,15 @@ public class Player {
         this.points = 0;
     }
 
+    void setPoints(int points) {
+        this.points = points;
+    }
+
     public String toString() {
         return String.format("%s (%s, %s)", this.name, this.tile, this.style);
     }
 
     public enum PlayStyle {
-        Human, Computer
+        Human, Computer, Search, MonteCarlo
     }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package SOS_Game.src;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * Lightweight, mutable game state for search and playouts.
+ * <p>
+ * A position carries only what is needed to play on: the packed cells, the empty cell index, both scores, the side to
+ * move and an incrementally maintained Zobrist hash. It has no players, writer or recording, and {@link #play(int)}
+ * and {@link #undo(int, int)} update it in place, so engines can walk a game tree without copying boards.
+ * <p>
+ * On boards of up to {@link Symmetry#MAX_SIZE} a side a position also keeps the hashes of its eight rotations and
+ * reflections, so {@link #getCanonicalHash()} names it and all its images alike at the cost of eight XORs a move.
+ * <p>
+ * Moves are packed into an int as {@code cell * 2 + tile}, where tile 0 is an S and 1 is an O.
+ */
+public class Position {
+    public static final int PLAYER_ONE = 0;
+    public static final int PLAYER_TWO = 1;
+
+    private final int size;
+    private final Board.GameMode mode;
+    private final BitBoard cells;
+    private final EmptyCells empty;
+    private final int[] points = new int[2];
+    private int side;
+    private long hash;
+    /** Null on boards too large for symmetry tables. */
+    private final Symmetry symmetry;
+    private final long[] symmetricHashes;
+    /** Built on first use by {@link #getThreats()}, since playouts have no use for it. */
+    private ThreatIndex threats;
+
+    Position(Board.GameMode mode, BitBoard cells, EmptyCells empty, int playerOnePoints, int playerTwoPoints, int side, long hash) {
+        this.size = cells.size();
+        this.mode = mode;
+        this.cells = cells;
+        this.empty = empty;
+        this.points[PLAYER_ONE] = playerOnePoints;
+        this.points[PLAYER_TWO] = playerTwoPoints;
+        this.side = side;
+        this.hash = hash;
+        this.symmetry = this.size <= Symmetry.MAX_SIZE ? Symmetry.of(this.size) : null;
+        this.symmetricHashes = this.symmetry != null ? this.symmetry.hashes(cells) : null;
+    }
+
+    /**
+     * Creates an empty position of the given size with player one to move.
+     */
+    public Position(int size, Board.GameMode mode) {
+        this(mode, new BitBoard(size), new EmptyCells(size * size), 0, 0, PLAYER_ONE, 0L);
+    }
+
+    public Position copy() {
+        return new Position(this.mode, this.cells.copy(), this.empty.copy(),
+                this.points[PLAYER_ONE], this.points[PLAYER_TWO], this.side, this.hash);
+    }
+
+    public static int move(int cell, TileValue tile) {
+        return cell * 2 + (tile == TileValue.O ? 1 : 0);
+    }
+
+    public static int moveCell(int move) {
+        return move >>> 1;
+    }
+
+    public static TileValue moveTile(int move) {
+        return (move & 1) == 0 ? TileValue.S : TileValue.O;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public Board.GameMode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * @return {@link #PLAYER_ONE} or {@link #PLAYER_TWO}.
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    public int getPoints(int player) {
+        return this.points[player];
+    }
+
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * @return The lowest hash among the position's eight images, equal for positions that are images of each other,
+     * or {@link #getHash()} on boards too large for symmetry tables.
+     */
+    public long getCanonicalHash() {
+        return this.symmetricHashes != null ? this.symmetricHashes[Symmetry.lowest(this.symmetricHashes)] : this.hash;
+    }
+
+    /**
+     * @return The symmetry that maps the position onto the image {@link #getCanonicalHash()} names; its moves map
+     * back with {@link Symmetry#inverseMove(int, int)}. Always {@link Symmetry#IDENTITY} on boards too large for
+     * symmetry tables.
+     */
+    public int getCanonicalSymmetry() {
+        return this.symmetricHashes != null ? Symmetry.lowest(this.symmetricHashes) : Symmetry.IDENTITY;
+    }
+
+    /**
+     * @return The hash of the position's image under the given symmetry.
+     */
+    long getHash(int symmetry) {
+        return this.symmetricHashes != null ? this.symmetricHashes[symmetry] : this.hash;
+    }
+
+    /**
+     * @return The symmetry tables for the board's size, or null if it is too large for them.
+     */
+    public Symmetry getSymmetry() {
+        return this.symmetry;
+    }
+
+    /**
+     * @return The scoring and unsafe moves of the position, indexed on first call and kept up to date by
+     *         {@link #play(int)} and {@link #undo(int, int)} from then on. Copies start without an index.
+     */
+    public ThreatIndex getThreats() {
+        if (this.threats == null) {
+            this.threats = new ThreatIndex(this.cells, this.empty);
+        }
+        return this.threats;
+    }
+
+    public TileValue getTile(int cell) {
+        return this.cells.get(cell);
+    }
+
+    public EmptyCells getEmptyCells() {
+        return this.empty;
+    }
+
+    public boolean isFull() {
+        return this.empty.size() == 0;
+    }
+
+    /**
+     * @return True if no further moves can be made: the board is full, or a Simple game has been won.
+     */
+    public boolean isOver() {
+        return isFull() || (this.mode == Board.GameMode.Simple && (this.points[PLAYER_ONE] > 0 || this.points[PLAYER_TWO] > 0));
+    }
+
+    /**
+     * @return The number of SOS lines the given move would complete, without making it.
+     */
+    public int gain(int move) {
+        int cell = moveCell(move);
+        this.cells.set(cell, moveTile(move));
+        int found = this.cells.linesThrough(cell / this.size, cell % this.size, null);
+        this.cells.set(cell, TileValue.None);
+        return found;
+    }
+
+    /**
+     * Makes the given move for the side to move and passes the turn.
+     *
+     * @return The number of SOS lines the move completed, which {@link #undo(int, int)} needs to take it back.
+     */
+    public int play(int move) {
+        int cell = moveCell(move);
+        TileValue tile = moveTile(move);
+        this.cells.set(cell, tile);
+        this.empty.remove(cell);
+        this.hash ^= Zobrist.key(cell, tile);
+        if (this.symmetricHashes != null) {
+            this.symmetry.toggle(this.symmetricHashes, cell, tile);
+        }
+        // An indexed position already knows what the move completes.
+        int found = this.threats != null ? this.threats.gain(move)
+                : this.cells.linesThrough(cell / this.size, cell % this.size, null);
+        this.points[this.side] += found;
+        this.side ^= 1;
+        if (this.threats != null) {
+            this.threats.tilePlaced(cell);
+        }
+        return found;
+    }
+
+    /**
+     * Takes back a move made by {@link #play(int)}.
+     *
+     * @param gained The value {@link #play(int)} returned for the move.
+     */
+    public void undo(int move, int gained) {
+        int cell = moveCell(move);
+        this.side ^= 1;
+        this.points[this.side] -= gained;
+        TileValue tile = moveTile(move);
+        this.hash ^= Zobrist.key(cell, tile);
+        if (this.symmetricHashes != null) {
+            this.symmetry.toggle(this.symmetricHashes, cell, tile);
+        }
+        this.empty.add(cell);
+        this.cells.set(cell, TileValue.None);
+        if (this.threats != null) {
+            this.threats.tileRemoved(cell, tile);
+        }
+    }
+}
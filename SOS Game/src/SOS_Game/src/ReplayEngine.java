@@ -0,0 +1,153 @@
+package SOS_Game.src;
+
+import java.util.ArrayList;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * Replays a recorded game on a {@link Board} of its own, without a display or any input events.
+ * <p>
+ * The recording is played through once when the engine is created, and a {@link Board.Keyframe} of the board is kept
+ * every {@link #getKeyframeInterval()} moves. Seeking to a move restores the nearest keyframe at or before it and plays
+ * the few moves in between, so any move can be reached in about the same time however long the game is. Stepping
+ * forwards plays the next move and stepping back undoes the last one.
+ */
+public class ReplayEngine {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    private final Board board;
+    private final int[] rows;
+    private final int[] columns;
+    private final TileValue[] tiles;
+    private final int interval;
+    private final Board.Keyframe[] keyframes;
+    private int position;
+
+    /**
+     * Keyframes every {@link #DEFAULT_KEYFRAME_INTERVAL} moves, or every row's worth of moves on larger boards, where
+     * each keyframe costs more to copy.
+     */
+    public ReplayEngine(GameReader recording) {
+        this(recording, Math.max(DEFAULT_KEYFRAME_INTERVAL, recording.getBoardSize()));
+    }
+
+    /**
+     * @throws IllegalArgumentException If a move of the recording is off the board or on an occupied cell.
+     */
+    public ReplayEngine(GameReader recording, int keyframeInterval) {
+        assert (keyframeInterval > 0);
+        this.board = new Board(recording.getBoardSize());
+        this.board.setReplay(true);
+        this.board.setGameMode(BinaryGameWriter.modeOf(recording));
+        this.interval = keyframeInterval;
+
+        ArrayList<GameReader.Move> moves = recording.getMoves();
+        this.rows = new int[moves.size()];
+        this.columns = new int[moves.size()];
+        this.tiles = new TileValue[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            GameReader.Move move = moves.get(i);
+            this.rows[i] = move.row;
+            this.columns[i] = move.column;
+            this.tiles[i] = "O".equals(move.tile) ? TileValue.O : TileValue.S;
+        }
+
+        this.keyframes = new Board.Keyframe[moves.size() / keyframeInterval + 1];
+        this.keyframes[0] = this.board.keyframe();
+        for (int i = 0; i < moves.size(); i++) {
+            int row = this.rows[i];
+            int column = this.columns[i];
+            if (row < 0 || row >= this.board.getBoardSize() || column < 0 || column >= this.board.getBoardSize()
+                    || this.board.getTile(row, column).getValue() != TileValue.None) {
+                throw new IllegalArgumentException(String.format("Move %s at (%s,%s) cannot be played.", i + 1, row, column));
+            }
+            play(i);
+            if ((i + 1) % keyframeInterval == 0) {
+                this.keyframes[(i + 1) / keyframeInterval] = this.board.keyframe();
+            }
+        }
+        this.position = moves.size();
+        seek(0);
+    }
+
+    /**
+     * @return The board showing the game as it stood after {@link #getPosition()} moves. Only the engine should
+     *         change it while the replay is in use.
+     */
+    public Board getBoard() {
+        return this.board;
+    }
+
+    public int getMoveCount() {
+        return this.rows.length;
+    }
+
+    /**
+     * @return The number of moves played on the board so far.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    public int getKeyframeInterval() {
+        return this.interval;
+    }
+
+    /**
+     * Shows the game as it stood after the given number of moves.
+     */
+    public void seek(int position) {
+        if (position < 0 || position > getMoveCount()) {
+            throw new IndexOutOfBoundsException(String.format("No position %s in a replay of %s moves.", position, getMoveCount()));
+        }
+        int keyframe = position / this.interval;
+        if (position < this.position || keyframe > this.position / this.interval) {
+            this.board.restore(this.keyframes[keyframe]);
+            this.position = keyframe * this.interval;
+        }
+        while (this.position < position) {
+            play(this.position++);
+        }
+    }
+
+    /**
+     * @return False if the replay was already at the last move.
+     */
+    public boolean stepForward() {
+        if (this.position == getMoveCount()) {
+            return false;
+        }
+        play(this.position++);
+        return true;
+    }
+
+    /**
+     * @return False if the replay was already at the start.
+     */
+    public boolean stepBack() {
+        if (this.position == 0) {
+            return false;
+        }
+        // The board's undo history reaches back to the last keyframe restored.
+        if (this.board.undo()) {
+            this.position--;
+        } else {
+            seek(this.position - 1);
+        }
+        return true;
+    }
+
+    public void rewind() {
+        seek(0);
+    }
+
+    public void fastForward() {
+        seek(getMoveCount());
+    }
+
+    private void play(int move) {
+        this.board.getTurn().setTile(this.tiles[move]);
+        this.board.makeMove(this.rows[move], this.columns[move]);
+        BoardMetrics.getDefault().recordReplayMove();
+    }
+}
@@ -0,0 +1,340 @@
+package SOS_Game.src;
+
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+/**
+ * Negamax alpha-beta search over {@link Position}s, used by the {@link Player.PlayStyle#Search} play style.
+ * <p>
+ * Values are always from the point of view of the side to move. In a General game a value is the number of points the
+ * side to move can still score minus the number its opponent can; in a Simple game it is {@link #WIN}, {@link #LOSS}
+ * or zero. The search deepens iteratively until its time budget runs out and keeps every result in a
+ * {@link TranspositionTable} keyed by the position's canonical Zobrist hash, so each iteration starts from the best
+ * moves found by the last one and rotations and reflections of a position share one entry. Stored moves are in the
+ * canonical position's frame and are mapped back through the position's canonical symmetry when probed.
+ * <p>
+ * Every ply considers both tiles on every empty cell and the per-ply move lists grow with the square of the number of
+ * empty cells, so the search is meant for the boards the GUI offers. Above {@link #MAX_BOARD_SIZE} it does not search
+ * at all and plays the greedy move of the position's {@link ThreatIndex} instead.
+ */
+public class SearchEngine implements Engine {
+    public static final int WIN = 10_000;
+    public static final int LOSS = -WIN;
+    /** The largest board searched; larger boards get the greedy move. */
+    public static final int MAX_BOARD_SIZE = 16;
+
+    private static final int DEFAULT_TABLE_SIZE = 1 << 18;
+    private static final long DEFAULT_TIME_BUDGET_MS = 10;
+    private static final long SIMPLE_MODE_KEY = 0x2545F4914F6CDD1DL;
+    private static final int NO_MOVE = -1;
+    private static final int INFINITY = 1 << 20;
+
+    private final TranspositionTable table;
+    private final SplittableRandom random = new SplittableRandom();
+    private final long timeBudgetNanos;
+    private BiFunction<Integer, Board.GameMode, Tablebase> tablebases;
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+    private int lastValue;
+    private int lastDepth;
+
+    /** Per-ply move lists, reused across searches to keep the search allocation-free. */
+    private int[][] moves = new int[0][];
+    private int[][] gains = new int[0][];
+
+    public SearchEngine() {
+        this(DEFAULT_TABLE_SIZE, DEFAULT_TIME_BUDGET_MS);
+    }
+
+    /**
+     * @param tableSize        The number of transposition table entries.
+     * @param timeBudgetMillis How long {@link #bestMove(Position)} may search before returning.
+     */
+    public SearchEngine(int tableSize, long timeBudgetMillis) {
+        this.table = new TranspositionTable(tableSize);
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+    }
+
+    /**
+     * Lets the search look moves up instead where a {@link Tablebase} covers the board. Engines start without
+     * tablebases and always search.
+     *
+     * @param tablebases Returns the table of a board size and game mode, or null if there is none, e.g.
+     *                   {@code Tablebase::find}; or null to always search.
+     */
+    public void setTablebases(BiFunction<Integer, Board.GameMode, Tablebase> tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * @return The number of positions visited by the last search.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @return The value of the last search's best move, from the point of view of the side that was to move.
+     */
+    public int getLastValue() {
+        return this.lastValue;
+    }
+
+    /**
+     * @return The depth of the last fully completed iteration of the last search.
+     */
+    public int getLastDepth() {
+        return this.lastDepth;
+    }
+
+    /**
+     * Searches the given position until the time budget runs out or the game is solved, or looks the move up instead
+     * if a {@link #setTablebases tablebase} covers the board. An interrupted search returns
+     * the best move of the last completed iteration early and leaves the thread interrupted. Boards larger than
+     * {@link #MAX_BOARD_SIZE} get the greedy move instead, with a depth and value of zero.
+     */
+    @Override
+    public int bestMove(Position position) {
+        assert (!position.isOver()) : "bestMove called on a finished position.";
+        if (position.getSize() > MAX_BOARD_SIZE) {
+            this.nodes = 0;
+            this.lastDepth = 0;
+            this.lastValue = 0;
+            return position.getThreats().greedyMove(position.getEmptyCells(), this.random);
+        }
+        FlightEvents.Search event = new FlightEvents.Search();
+        event.begin();
+        ensureCapacity(position.getEmptyCells().size());
+        this.nodes = 0;
+        this.aborted = false;
+        this.lastDepth = 0;
+        this.deadline = System.nanoTime() + this.timeBudgetNanos;
+
+        int best = NO_MOVE;
+        int maxDepth = position.getEmptyCells().size();
+        Tablebase table = this.tablebases == null ? null : this.tablebases.apply(position.getSize(), position.getMode());
+        if (table != null) {
+            best = table.bestMove(position);
+            int value = table.value(position);
+            this.lastValue = position.getMode() == Board.GameMode.Simple ? value * WIN : value;
+            this.lastDepth = maxDepth;
+        }
+        for (int depth = 1; table == null && depth <= maxDepth; depth++) {
+            int move = searchRoot(position, depth);
+            if (this.aborted) {
+                break;
+            }
+            best = move;
+            this.lastDepth = depth;
+            if (Math.abs(this.lastValue) >= WIN) {
+                break;
+            }
+        }
+        if (event.shouldCommit()) {
+            event.engine = getClass().getSimpleName();
+            event.boardSize = position.getSize();
+            event.mode = position.getMode().toString();
+            event.emptyCells = maxDepth;
+            event.nodes = this.nodes;
+            event.depth = this.lastDepth;
+            event.commit();
+        }
+        return best;
+    }
+
+    private int searchRoot(Position position, int depth) {
+        int count = generateMoves(position, 0);
+        int[] moveList = this.moves[0];
+        int alpha = -INFINITY;
+        int best = moveList[0];
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            int value = searchMove(position, move, depth, 1, alpha, INFINITY);
+            if (this.aborted) {
+                return best;
+            }
+            if (value > alpha) {
+                alpha = value;
+                best = move;
+            }
+        }
+        this.lastValue = alpha;
+        int symmetry = position.getCanonicalSymmetry();
+        this.table.store(key(position, symmetry), depth, TranspositionTable.EXACT, alpha,
+                toCanonical(position, symmetry, best));
+        return best;
+    }
+
+    /**
+     * Plays the move, searches the resulting position and takes the move back.
+     *
+     * @return The value of the move for the side making it.
+     */
+    private int searchMove(Position position, int move, int depth, int ply, int alpha, int beta) {
+        int gained = position.play(move);
+        int value;
+        if (position.getMode() == Board.GameMode.Simple && gained > 0) {
+            value = WIN;
+        } else if (position.isFull()) {
+            value = gained;
+        } else {
+            value = gained - negamax(position, depth - 1, ply, gained - beta, gained - alpha);
+        }
+        position.undo(move, gained);
+        return value;
+    }
+
+    private int negamax(Position position, int depth, int ply, int alpha, int beta) {
+        if ((++this.nodes & 1023) == 0 && this.lastDepth > 0
+                && (System.nanoTime() > this.deadline || Thread.currentThread().isInterrupted())) {
+            this.aborted = true;
+        }
+        if (this.aborted) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate(position);
+        }
+
+        int symmetry = position.getCanonicalSymmetry();
+        long key = key(position, symmetry);
+        long entry = this.table.probe(key);
+        int hashMove = NO_MOVE;
+        if (entry != TranspositionTable.MISSING) {
+            hashMove = fromCanonical(position, symmetry, TranspositionTable.move(entry));
+            if (TranspositionTable.depth(entry) >= depth) {
+                int value = TranspositionTable.value(entry);
+                int flag = TranspositionTable.flag(entry);
+                if (flag == TranspositionTable.EXACT
+                        || (flag == TranspositionTable.LOWER_BOUND && value >= beta)
+                        || (flag == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                    return value;
+                }
+            }
+        }
+
+        int count = generateMoves(position, ply);
+        int[] moveList = this.moves[ply];
+        promote(moveList, count, hashMove);
+
+        int originalAlpha = alpha;
+        int bestValue = -INFINITY;
+        int bestMove = moveList[0];
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            int value = searchMove(position, move, depth, ply + 1, alpha, beta);
+            if (this.aborted) {
+                return 0;
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = move;
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = bestValue <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : bestValue >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        this.table.store(key, depth, flag, bestValue, toCanonical(position, symmetry, bestMove));
+        return bestValue;
+    }
+
+    /**
+     * Static value of a position at the search horizon: whatever the side to move can take with a single tile.
+     */
+    private int evaluate(Position position) {
+        int best = position.getThreats().bestGain();
+        if (position.getMode() == Board.GameMode.Simple) {
+            return best > 0 ? WIN : 0;
+        }
+        return best;
+    }
+
+    /**
+     * Fills the move list for the given ply from the position's {@link ThreatIndex}: moves that complete a line
+     * first, most lines first, then safe moves, and last the moves that set a line up for the opponent.
+     *
+     * @return The number of moves generated.
+     */
+    private int generateMoves(Position position, int ply) {
+        int[] moveList = this.moves[ply];
+        int[] gainList = this.gains[ply];
+        ThreatIndex threats = position.getThreats();
+        int count = 0;
+        for (int slot = 0; slot < threats.scoringCount(); slot++) {
+            int move = threats.scoringMove(slot);
+            int gain = threats.gain(move);
+            // Insertion sort by gain; there are rarely more than a few scoring moves.
+            int i = count++;
+            while (i > 0 && gainList[i - 1] < gain) {
+                moveList[i] = moveList[i - 1];
+                gainList[i] = gainList[i - 1];
+                i--;
+            }
+            moveList[i] = move;
+            gainList[i] = gain;
+        }
+        EmptyCells empty = position.getEmptyCells();
+        int total = 2 * empty.size();
+        int tail = total;
+        for (int slot = 0; slot < empty.size(); slot++) {
+            int cell = empty.get(slot);
+            for (int tile = 0; tile < 2; tile++) {
+                int move = cell * 2 + tile;
+                if (threats.isScoring(move)) {
+                    continue;
+                }
+                // Unsafe moves fill the list from the back, so they end up right after the safe ones.
+                if (threats.isUnsafe(move)) {
+                    moveList[--tail] = move;
+                } else {
+                    moveList[count++] = move;
+                }
+            }
+        }
+        return total;
+    }
+
+    private static void promote(int[] moveList, int count, int move) {
+        if (move == NO_MOVE) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (moveList[i] == move) {
+                System.arraycopy(moveList, 0, moveList, 1, i);
+                moveList[0] = move;
+                return;
+            }
+        }
+    }
+
+    private void ensureCapacity(int emptyCells) {
+        if (this.moves.length <= emptyCells || (this.moves.length > 0 && this.moves[0].length < 2 * emptyCells)) {
+            this.moves = new int[emptyCells + 1][2 * emptyCells];
+            this.gains = new int[emptyCells + 1][2 * emptyCells];
+        }
+    }
+
+    /**
+     * @return The table key of the position's image under its canonical symmetry.
+     */
+    private static long key(Position position, int symmetry) {
+        long hash = position.getHash(symmetry);
+        return position.getMode() == Board.GameMode.Simple ? hash ^ SIMPLE_MODE_KEY : hash;
+    }
+
+    private static int toCanonical(Position position, int symmetry, int move) {
+        return symmetry == Symmetry.IDENTITY ? move : position.getSymmetry().move(symmetry, move);
+    }
+
+    private static int fromCanonical(Position position, int symmetry, int move) {
+        return symmetry == Symmetry.IDENTITY ? move : position.getSymmetry().inverseMove(symmetry, move);
+    }
+}
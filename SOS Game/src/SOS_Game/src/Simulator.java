@@ -0,0 +1,202 @@
+package SOS_Game.src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless self-play: plays many games between two play styles across a thread pool and reports the results.
+ * <p>
+ * Games are played on {@link Position}s rather than {@link Board}s, so nothing is recorded or displayed. Every worker
+ * thread owns its random generator and engines, and workers only meet again when their tallies are summed.
+ * <p>
+ * Usage: {@code Simulator [--games N] [--threads N] [--size N] [--mode Simple|General] [--p1 STYLE] [--p2 STYLE]
+ * [--budget MS] [--seed N]}, where STYLE is Computer, Search or MonteCarlo.
+ */
+public class Simulator {
+    private final int boardSize;
+    private final Board.GameMode mode;
+    private final Player.PlayStyle playerOne;
+    private final Player.PlayStyle playerTwo;
+    private final int threads;
+    private long timeBudgetMillis = 10;
+    private long seed = System.nanoTime();
+
+    public Simulator(int boardSize, Board.GameMode mode, Player.PlayStyle playerOne, Player.PlayStyle playerTwo, int threads) {
+        assert (boardSize >= Board.MIN_BOARD_SIZE && boardSize <= Board.MAX_BOARD_SIZE);
+        if (playerOne == Player.PlayStyle.Human || playerTwo == Player.PlayStyle.Human) {
+            throw new IllegalArgumentException("Simulated games cannot have a Human player.");
+        }
+        this.boardSize = boardSize;
+        this.mode = mode;
+        this.playerOne = playerOne;
+        this.playerTwo = playerTwo;
+        this.threads = threads;
+    }
+
+    /**
+     * Sets how long the Search and MonteCarlo styles may think about each move.
+     */
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Plays the given number of games, split as evenly as possible across the worker threads.
+     */
+    public Result run(long games) {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        SplittableRandom seeds = new SplittableRandom(this.seed);
+        List<Callable<Result>> workers = new ArrayList<>(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            long share = games / this.threads + (i < games % this.threads ? 1 : 0);
+            SplittableRandom random = seeds.split();
+            workers.add(() -> play(share, random));
+        }
+
+        long start = System.nanoTime();
+        Result total = new Result();
+        try {
+            for (Future<Result> result : pool.invokeAll(workers)) {
+                total.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        total.elapsedNanos = System.nanoTime() - start;
+        return total;
+    }
+
+    private Result play(long games, SplittableRandom random) {
+        Engine[] engines = {createEngine(this.playerOne), createEngine(this.playerTwo)};
+        Result result = new Result();
+        for (long game = 0; game < games; game++) {
+            Position position = new Position(this.boardSize, this.mode);
+            while (!position.isOver()) {
+                Engine engine = engines[position.getSide()];
+                int move;
+                if (engine == null) {
+                    move = position.getThreats().greedyMove(position.getEmptyCells(), random);
+                } else {
+                    move = engine.bestMove(position);
+                }
+                position.play(move);
+            }
+            result.record(position);
+        }
+        for (Engine engine : engines) {
+            if (engine instanceof MonteCarloEngine) ((MonteCarloEngine) engine).shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * @return The engine for the given style, or null for the greedy Computer style.
+     */
+    private Engine createEngine(Player.PlayStyle style) {
+        switch (style) {
+            case Search: return new SearchEngine(1 << 16, this.timeBudgetMillis);
+            // Games already run one per thread, so each Monte Carlo search gets a single worker.
+            case MonteCarlo: return new MonteCarloEngine(1, this.timeBudgetMillis);
+            default: return null;
+        }
+    }
+
+    /**
+     * Tally of finished games.
+     */
+    public static class Result {
+        private long playerOneWins;
+        private long playerTwoWins;
+        private long draws;
+        private long elapsedNanos;
+
+        private void record(Position position) {
+            int one = position.getPoints(Position.PLAYER_ONE);
+            int two = position.getPoints(Position.PLAYER_TWO);
+            if (one > two) this.playerOneWins++;
+            else if (two > one) this.playerTwoWins++;
+            else this.draws++;
+        }
+
+        private void add(Result other) {
+            this.playerOneWins += other.playerOneWins;
+            this.playerTwoWins += other.playerTwoWins;
+            this.draws += other.draws;
+        }
+
+        public long getGames() {
+            return this.playerOneWins + this.playerTwoWins + this.draws;
+        }
+
+        public long getPlayerOneWins() {
+            return this.playerOneWins;
+        }
+
+        public long getPlayerTwoWins() {
+            return this.playerTwoWins;
+        }
+
+        public long getDraws() {
+            return this.draws;
+        }
+
+        public double getGamesPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : getGames() * 1e9 / this.elapsedNanos;
+        }
+
+        public String toString() {
+            double games = Math.max(1, getGames());
+            return String.format("%s games: Player 1 won %.1f%%, Player 2 won %.1f%%, %.1f%% drawn (%.0f games/s)",
+                    getGames(), 100 * this.playerOneWins / games, 100 * this.playerTwoWins / games,
+                    100 * this.draws / games, getGamesPerSecond());
+        }
+    }
+
+    public static void main(String[] args) {
+        long games = 10_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int size = Board.MIN_BOARD_SIZE;
+        Board.GameMode mode = Board.GameMode.General;
+        Player.PlayStyle playerOne = Player.PlayStyle.Computer;
+        Player.PlayStyle playerTwo = Player.PlayStyle.Computer;
+        Long budget = null;
+        Long seed = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games": games = Long.parseLong(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--size": size = Integer.parseInt(value); break;
+                case "--mode": mode = Board.GameMode.valueOf(value); break;
+                case "--p1": playerOne = Player.PlayStyle.valueOf(value); break;
+                case "--p2": playerTwo = Player.PlayStyle.valueOf(value); break;
+                case "--budget": budget = Long.parseLong(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default:
+                    System.out.println(String.format("Error: Unknown option %s.", args[i]));
+                    return;
+            }
+        }
+
+        Simulator simulator = new Simulator(size, mode, playerOne, playerTwo, threads);
+        if (budget != null) simulator.setTimeBudgetMillis(budget);
+        if (seed != null) simulator.setSeed(seed);
+        System.out.println(String.format("%sx%s %s game, %s vs %s on %s threads.", size, size, mode, playerOne, playerTwo, threads));
+        System.out.println(simulator.run(games));
+    }
+}
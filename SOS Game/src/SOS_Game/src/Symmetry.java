@@ -0,0 +1,142 @@
+package SOS_Game.src;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * The eight rotations and reflections of a square board, as precomputed cell permutations.
+ * <p>
+ * Symmetry {@code t} transposes the board if {@code t} is odd and then turns it a quarter turn clockwise {@code t / 2}
+ * times; symmetry 0 leaves it as it is. Positions that are images of each other under a symmetry play out the same,
+ * so a table keyed by the lowest of a position's eight images needs up to eight times fewer entries.
+ * <p>
+ * Besides the permutations, a symmetry table holds the {@link Zobrist} key of every tile in every cell under every
+ * symmetry, so that {@link Position} can keep the hashes of all eight images up to date with eight XORs a move and
+ * canonicalize on every node of a search. The tables grow with the square of the size, so they are only built for
+ * boards of up to {@link #MAX_SIZE} cells a side.
+ */
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+    public static final int MAX_SIZE = 16;
+
+    private static final Symmetry[] tables = new Symmetry[MAX_SIZE + 1];
+
+    private final int size;
+    /** forward[t * cells + cell] is where symmetry t moves the cell; inverse undoes it. */
+    private final int[] forward;
+    private final int[] inverse;
+    /** keys[(cell * 2 + tile) * COUNT + t] is the Zobrist key of the tile in the cell's image under symmetry t. */
+    private final long[] keys;
+
+    private Symmetry(int size) {
+        int cells = size * size;
+        this.size = size;
+        this.forward = new int[COUNT * cells];
+        this.inverse = new int[COUNT * cells];
+        this.keys = new long[2 * COUNT * cells];
+        for (int t = 0; t < COUNT; t++) {
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    int r = (t & 1) == 0 ? row : column;
+                    int c = (t & 1) == 0 ? column : row;
+                    for (int turn = 0; turn < t / 2; turn++) {
+                        int rotated = c;
+                        c = size - 1 - r;
+                        r = rotated;
+                    }
+                    int cell = row * size + column;
+                    int image = r * size + c;
+                    this.forward[t * cells + cell] = image;
+                    this.inverse[t * cells + image] = cell;
+                    this.keys[(cell * 2) * COUNT + t] = Zobrist.key(image, TileValue.S);
+                    this.keys[(cell * 2 + 1) * COUNT + t] = Zobrist.key(image, TileValue.O);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The shared symmetry table for boards of the given size.
+     * @throws IllegalArgumentException If the size is above {@link #MAX_SIZE}.
+     */
+    public static Symmetry of(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException(String.format("No symmetry tables for boards of size %s.", size));
+        }
+        synchronized (tables) {
+            if (tables[size] == null) {
+                tables[size] = new Symmetry(size);
+            }
+            return tables[size];
+        }
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return The cell that symmetry t moves the given cell to.
+     */
+    public int cell(int t, int cell) {
+        return this.forward[t * this.size * this.size + cell];
+    }
+
+    /**
+     * @return The cell that symmetry t moves to the given cell.
+     */
+    public int inverseCell(int t, int cell) {
+        return this.inverse[t * this.size * this.size + cell];
+    }
+
+    /**
+     * @return The move, packed as described in {@link Position}, as seen on the image of the board under symmetry t.
+     */
+    public int move(int t, int move) {
+        return cell(t, Position.moveCell(move)) * 2 + (move & 1);
+    }
+
+    /**
+     * @return The move on the board whose image under symmetry t has the given move.
+     */
+    public int inverseMove(int t, int move) {
+        return inverseCell(t, Position.moveCell(move)) * 2 + (move & 1);
+    }
+
+    /**
+     * @return The Zobrist hash of each of the eight images of the cells, by symmetry.
+     */
+    long[] hashes(BitBoard cells) {
+        long[] hashes = new long[COUNT];
+        for (int cell = 0; cell < this.size * this.size; cell++) {
+            TileValue tile = cells.get(cell);
+            if (tile != TileValue.None) {
+                toggle(hashes, cell, tile);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Places or removes the tile in the cell of each of the hashed images.
+     */
+    void toggle(long[] hashes, int cell, TileValue tile) {
+        int base = (cell * 2 + (tile == TileValue.O ? 1 : 0)) * COUNT;
+        for (int t = 0; t < COUNT; t++) {
+            hashes[t] ^= this.keys[base + t];
+        }
+    }
+
+    /**
+     * @return The symmetry whose image has the lowest hash, the lowest such symmetry if images tie.
+     */
+    static int lowest(long[] hashes) {
+        int lowest = IDENTITY;
+        for (int t = 1; t < COUNT; t++) {
+            if (hashes[t] < hashes[lowest]) {
+                lowest = t;
+            }
+        }
+        return lowest;
+    }
+}
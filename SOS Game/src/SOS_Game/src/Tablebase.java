@@ -0,0 +1,486 @@
+package SOS_Game.src;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * The solved value and best move of every position of a small board, for perfect play by lookup instead of search.
+ * <p>
+ * A position is keyed by its cells read as a base-3 number, cell 0 the lowest digit, with 0 for an empty cell, 1 for
+ * an S and 2 for an O; as the turn always passes, the side to move follows from the number of tiles. Of the eight
+ * rotations and reflections of a position only the one with the lowest key is stored. The file holds a bitmap of the
+ * stored keys, the number of stored keys before every 64-bit word of it, and two bytes per stored key, its best move
+ * and value, in key order. {@link #open(File)} maps the file, and a lookup is eight key transforms, a bit test and a
+ * population count, whatever the size of the table.
+ * <p>
+ * Values are from the point of view of the side to move: in a General game the points it can still score minus those
+ * its opponent can, in a Simple game 1, 0 or -1 for a win, draw or loss. Finished and full positions are not stored.
+ * A 4x4 table has 3^16 keys and takes about 20 MB; {@link #main(String[])} solves and writes the 3x3 and 4x4 tables.
+ */
+public class Tablebase {
+    public static final int MAX_BOARD_SIZE = 4;
+    static final byte[] MAGIC = {'S', 'O', 'S', 'T'};
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 2;
+    /** Marks a Simple position that already holds an SOS while solving. */
+    private static final byte FINISHED = Byte.MIN_VALUE;
+    /** Returned by the solver for a full board. */
+    private static final int NO_MOVE = Integer.MIN_VALUE;
+
+    private static final ConcurrentHashMap<String, Tablebase> loaded = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final Board.GameMode mode;
+    private final Symmetries symmetries;
+    private final LongBuffer bitmap;
+    private final IntBuffer ranks;
+    private final ByteBuffer entries;
+    private final int entryCount;
+
+    private Tablebase(int size, Board.GameMode mode, LongBuffer bitmap, IntBuffer ranks, ByteBuffer entries, int entryCount) {
+        this.size = size;
+        this.mode = mode;
+        this.symmetries = new Symmetries(size);
+        this.bitmap = bitmap;
+        this.ranks = ranks;
+        this.entries = entries;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Maps a table written by {@link #solve(int, Board.GameMode, File)}.
+     */
+    public static Tablebase open(File file) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        byte[] magic = new byte[MAGIC.length];
+        map.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || map.getInt() != VERSION) {
+            throw new IOException(String.format("%s is not a version %s tablebase.", file, VERSION));
+        }
+        int size = map.getInt();
+        int modeIndex = map.getInt();
+        long keys = map.getLong();
+        int entryCount = map.getInt();
+        int words = (int) ((keys + 63) / 64);
+        if (size < Board.MIN_BOARD_SIZE || size > MAX_BOARD_SIZE || keys != power(size * size)
+                || modeIndex < 0 || modeIndex >= Board.GameMode.values().length
+                || map.capacity() != HEADER_SIZE + 12L * words + (long) ENTRY_SIZE * entryCount) {
+            throw new IOException(String.format("%s is truncated or corrupt.", file));
+        }
+
+        map.position(HEADER_SIZE);
+        LongBuffer bitmap = map.slice().asLongBuffer();
+        map.position(HEADER_SIZE + 8 * words);
+        IntBuffer ranks = map.slice().asIntBuffer();
+        map.position(HEADER_SIZE + 12 * words);
+        ByteBuffer entries = map.slice();
+        return new Tablebase(size, Board.GameMode.values()[modeIndex], bitmap, ranks, entries, entryCount);
+    }
+
+    /**
+     * @return The table for the given board in {@link #defaultFile(int, Board.GameMode)}, mapped on first use, or null
+     *         if there is none. A missing table is looked for again on the next call, so tables generated while the
+     *         game runs are picked up.
+     */
+    public static Tablebase find(int size, Board.GameMode mode) {
+        return loaded.computeIfAbsent(size + " " + mode, name -> {
+            File file = defaultFile(size, mode);
+            if (size <= MAX_BOARD_SIZE && file.exists()) {
+                try {
+                    return open(file);
+                } catch (IOException e) {
+                    System.out.println(String.format("Error: Could not open tablebase: %s", e.getMessage()));
+                }
+            }
+            // Returning null leaves nothing in the map.
+            return null;
+        });
+    }
+
+    /**
+     * @return user.dir/tablebase/SIZExSIZE-MODE.sostb
+     */
+    public static File defaultFile(int size, Board.GameMode mode) {
+        return new File(System.getProperty("user.dir") + "/tablebase", String.format("%sx%s-%s.sostb", size, size, mode));
+    }
+
+    public int getBoardSize() {
+        return this.size;
+    }
+
+    public Board.GameMode getGameMode() {
+        return this.mode;
+    }
+
+    /**
+     * @return The number of positions stored.
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * @return The best move for the side to move, packed as described in {@link Position}.
+     */
+    public int bestMove(Position position) {
+        int found = lookup(position);
+        int move = this.entries.get(ENTRY_SIZE * (found >>> 3)) & 0xFF;
+        return this.symmetries.symmetry.inverseMove(found & 7, move);
+    }
+
+    /**
+     * @return The value of the position under perfect play by both sides, as described above.
+     */
+    public int value(Position position) {
+        return this.entries.get(ENTRY_SIZE * (lookup(position) >>> 3) + 1);
+    }
+
+    /**
+     * @return The index of the position's entry shifted left 3 bits, or'd with the symmetry that maps the position to
+     *         the stored one.
+     */
+    private int lookup(Position position) {
+        assert (position.getSize() == this.size && position.getMode() == this.mode) :
+                String.format("A %sx%s %s position looked up in a %sx%s %s tablebase.", position.getSize(),
+                        position.getSize(), position.getMode(), this.size, this.size, this.mode);
+        assert (!position.isOver()) : "Tablebase lookup of a finished position.";
+
+        int[] digits = new int[this.size * this.size];
+        for (int cell = 0; cell < digits.length; cell++) {
+            TileValue tile = position.getTile(cell);
+            digits[cell] = tile == TileValue.None ? 0 : tile.ordinal() + 1;
+        }
+        int[] transformed = new int[Symmetry.COUNT];
+        this.symmetries.keys(digits, transformed);
+        int symmetry = 0;
+        for (int t = 1; t < Symmetry.COUNT; t++) {
+            if (transformed[t] < transformed[symmetry]) {
+                symmetry = t;
+            }
+        }
+        int key = transformed[symmetry];
+
+        long word = this.bitmap.get(key >>> 6);
+        if ((word & (1L << key)) == 0) {
+            throw new IllegalStateException(String.format("Position %s is missing from the tablebase.", key));
+        }
+        return (this.ranks.get(key >>> 6) + Long.bitCount(word & ((1L << key) - 1))) << 3 | symmetry;
+    }
+
+    /**
+     * Solves every position of the given board and writes the table to the given file.
+     *
+     * @return The number of positions stored.
+     */
+    public static int solve(int size, Board.GameMode mode, File file) throws IOException {
+        if (size < Board.MIN_BOARD_SIZE || size > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException(String.format("Tablebases are for boards of %s to %s cells a side.",
+                    Board.MIN_BOARD_SIZE, MAX_BOARD_SIZE));
+        }
+        Solver solver = new Solver(size, mode);
+        solver.solve();
+
+        int words = (solver.keys + 63) / 64;
+        long[] bitmap = new long[words];
+        int[] ranks = new int[words];
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        int entryCount = solver.store(bitmap, ranks, entries);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(mode.ordinal());
+            out.writeLong(solver.keys);
+            out.writeInt(entryCount);
+            out.write(new byte[HEADER_SIZE - 28]);
+            for (long word : bitmap) {
+                out.writeLong(word);
+            }
+            for (int rank : ranks) {
+                out.writeInt(rank);
+            }
+            entries.writeTo(out);
+        }
+        return entryCount;
+    }
+
+    private static int power(int cells) {
+        int power = 1;
+        for (int i = 0; i < cells; i++) {
+            power *= 3;
+        }
+        return power;
+    }
+
+    /**
+     * Base-3 keys of the eight images of a board, using the cell permutations of {@link Symmetry}.
+     */
+    static final class Symmetries {
+        final Symmetry symmetry;
+        private final int[] powers;
+
+        Symmetries(int size) {
+            int cells = size * size;
+            this.symmetry = Symmetry.of(size);
+            this.powers = new int[cells];
+            for (int cell = 0, power = 1; cell < cells; cell++, power *= 3) {
+                this.powers[cell] = power;
+            }
+        }
+
+        /**
+         * Fills keys[t] with the key of the cells as symmetry t maps them.
+         */
+        void keys(int[] digits, int[] keys) {
+            Arrays.fill(keys, 0);
+            for (int cell = 0; cell < digits.length; cell++) {
+                int digit = digits[cell];
+                if (digit != 0) {
+                    for (int t = 0; t < Symmetry.COUNT; t++) {
+                        keys[t] += digit * this.powers[this.symmetry.cell(t, cell)];
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Solver {
+        final int size;
+        final int cells;
+        final int keys;
+        final Board.GameMode mode;
+        final int[] powers;
+        /** For every cell and tile, the pairs of other cells that must hold S and O (for an S) or S and S (for an O). */
+        final int[][][] needs = new int[2][][];
+        final int[][] lines;
+        final byte[] values;
+
+        Solver(int size, Board.GameMode mode) {
+            this.size = size;
+            this.cells = size * size;
+            this.keys = power(this.cells);
+            this.mode = mode;
+            this.powers = new int[this.cells];
+            for (int cell = 0, power = 1; cell < this.cells; cell++, power *= 3) {
+                this.powers[cell] = power;
+            }
+
+            List<int[]> lines = new ArrayList<>();
+            int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    for (int[] d : directions) {
+                        int endRow = row + 2 * d[0];
+                        int endColumn = column + 2 * d[1];
+                        if (endRow < size && endColumn >= 0 && endColumn < size) {
+                            lines.add(new int[]{row * size + column, (row + d[0]) * size + column + d[1], endRow * size + endColumn});
+                        }
+                    }
+                }
+            }
+            this.lines = lines.toArray(new int[0][]);
+
+            // needs[tile][cell] holds pairs: the cell completes a line if the first holds the wanted tile, and so on.
+            List<List<int[]>> s = new ArrayList<>();
+            List<List<int[]>> o = new ArrayList<>();
+            for (int cell = 0; cell < this.cells; cell++) {
+                s.add(new ArrayList<>());
+                o.add(new ArrayList<>());
+            }
+            for (int[] line : this.lines) {
+                s.get(line[0]).add(new int[]{line[1], line[2]});
+                s.get(line[2]).add(new int[]{line[1], line[0]});
+                o.get(line[1]).add(new int[]{line[0], line[2]});
+            }
+            this.needs[0] = flatten(s);
+            this.needs[1] = flatten(o);
+            this.values = new byte[this.keys];
+        }
+
+        private static int[][] flatten(List<List<int[]>> pairs) {
+            int[][] flat = new int[pairs.size()][];
+            for (int cell = 0; cell < flat.length; cell++) {
+                List<int[]> list = pairs.get(cell);
+                flat[cell] = new int[2 * list.size()];
+                for (int i = 0; i < list.size(); i++) {
+                    flat[cell][2 * i] = list.get(i)[0];
+                    flat[cell][2 * i + 1] = list.get(i)[1];
+                }
+            }
+            return flat;
+        }
+
+        void solve() {
+            int[] digits = new int[this.cells];
+            Arrays.fill(digits, 2);
+            for (int key = this.keys - 1; key >= 0; key--) {
+                if (this.mode == Board.GameMode.Simple && hasLine(digits)) {
+                    this.values[key] = FINISHED;
+                } else {
+                    int best = bestMove(key, digits);
+                    this.values[key] = (byte) (best == NO_MOVE ? 0 : best >> 8);
+                }
+                // Count the digits down to the next key.
+                for (int cell = 0; key > 0; cell++) {
+                    if (digits[cell]-- != 0) {
+                        break;
+                    }
+                    digits[cell] = 2;
+                }
+            }
+        }
+
+        /**
+         * Stores the best move and value of every key that is the lowest of its symmetries and not finished.
+         *
+         * @return The number of entries stored.
+         */
+        int store(long[] bitmap, int[] ranks, ByteArrayOutputStream entries) {
+            Symmetries symmetries = new Symmetries(this.size);
+            int[] digits = new int[this.cells];
+            int[] transformed = new int[Symmetry.COUNT];
+            int count = 0;
+            for (int key = 0; key < this.keys; key++) {
+                if ((key & 63) == 0) {
+                    ranks[key >>> 6] = count;
+                }
+                if (this.values[key] != FINISHED) {
+                    symmetries.keys(digits, transformed);
+                    boolean lowest = true;
+                    for (int t = 1; t < Symmetry.COUNT && lowest; t++) {
+                        lowest = transformed[t] >= key;
+                    }
+                    int best = lowest ? bestMove(key, digits) : NO_MOVE;
+                    if (best != NO_MOVE) {
+                        bitmap[key >>> 6] |= 1L << key;
+                        entries.write(best & 0xFF);
+                        entries.write(this.values[key]);
+                        count++;
+                    }
+                }
+                // Count the digits up to the next key.
+                for (int cell = 0; cell < this.cells; cell++) {
+                    if (digits[cell]++ != 2) {
+                        break;
+                    }
+                    digits[cell] = 0;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return The value of the best move shifted left 8 bits, or'd with the move; the first of equal moves in cell
+         *         and then tile order wins. {@link #NO_MOVE} if the board is full.
+         */
+        private int bestMove(int key, int[] digits) {
+            int bestValue = Integer.MIN_VALUE;
+            int bestMove = -1;
+            for (int cell = 0; cell < this.cells; cell++) {
+                if (digits[cell] != 0) {
+                    continue;
+                }
+                for (int tile = 0; tile < 2; tile++) {
+                    int gained = gain(digits, cell, tile);
+                    int next = key + (tile + 1) * this.powers[cell];
+                    int value;
+                    if (this.mode == Board.GameMode.Simple) {
+                        value = gained > 0 ? 1 : -this.values[next];
+                    } else {
+                        value = gained - this.values[next];
+                    }
+                    if (value > bestValue) {
+                        bestValue = value;
+                        bestMove = cell * 2 + tile;
+                    }
+                }
+            }
+            return bestMove < 0 ? NO_MOVE : bestValue << 8 | bestMove;
+        }
+
+        private int gain(int[] digits, int cell, int tile) {
+            int[] pairs = this.needs[tile][cell];
+            // An S needs an O next to it and an S beyond; an O needs an S on both sides.
+            int first = tile == 0 ? 2 : 1;
+            int found = 0;
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (digits[pairs[i]] == first && digits[pairs[i + 1]] == 1) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        private boolean hasLine(int[] digits) {
+            for (int[] line : this.lines) {
+                if (digits[line[0]] == 1 && digits[line[1]] == 2 && digits[line[2]] == 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Usage: {@code Tablebase [--sizes MIN-MAX] [--modes Simple,General] [--out DIR]}. Writes to user.dir/tablebase by
+     * default, where {@link #find(int, Board.GameMode)} looks.
+     */
+    public static void main(String[] args) throws IOException {
+        int minSize = Board.MIN_BOARD_SIZE;
+        int maxSize = MAX_BOARD_SIZE;
+        String modes = "Simple,General";
+        String out = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes": {
+                    String[] range = args[++i].split("-");
+                    minSize = Integer.parseInt(range[0]);
+                    maxSize = Integer.parseInt(range[range.length - 1]);
+                    break;
+                }
+                case "--modes": modes = args[++i]; break;
+                case "--out": out = args[++i]; break;
+                default:
+                    System.out.println(String.format("Error: Unknown option %s.", args[i]));
+                    return;
+            }
+        }
+
+        for (int size = minSize; size <= maxSize; size++) {
+            for (String name : modes.split(",")) {
+                Board.GameMode mode = Board.GameMode.valueOf(name);
+                File file = out == null ? defaultFile(size, mode) : new File(out, defaultFile(size, mode).getName());
+                long start = System.nanoTime();
+                int entries = solve(size, mode, file);
+                System.out.println(String.format("%sx%s %-7s %10s positions, %6.1f MB, %6.1f s -> %s", size, size, mode,
+                        entries, file.length() / 1e6, (System.nanoTime() - start) / 1e9, file));
+            }
+        }
+    }
+}
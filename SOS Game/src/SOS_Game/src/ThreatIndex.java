@@ -0,0 +1,404 @@
+package SOS_Game.src;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * Incrementally maintained index of the moves on a {@link BitBoard} that matter tactically: the scoring moves, which
+ * complete at least one SOS line, and the unsafe moves, which complete none but leave a line one tile short of SOS
+ * with its last cell empty, for the opponent to complete on the next turn. Every other move is safe.
+ * <p>
+ * Each move keeps a count of the lines it would complete and of the lines it would set up, which depend only on the
+ * other two cells of each of the 12 lines through its cell. A tile therefore only changes the counts of the cells
+ * sharing one of its own 12 lines, and {@link #tilePlaced(int)} and {@link #tileRemoved(int, TileValue)} adjust
+ * those by the difference the tile makes to each line, reading two cells a line. The scoring and unsafe moves are
+ * also kept as indexed sets, so an engine can list the scoring moves without scanning the board and
+ * {@link #greedyMove(EmptyCells, RandomGenerator)} plays greedily in constant time on most turns.
+ * <p>
+ * Counts are held in pages allocated on first write, as {@link EmptyCells} does, so memory grows with the number of
+ * tiles played rather than with the size of the board. Moves are packed as described in {@link Position}.
+ */
+public class ThreatIndex {
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    /** A move's count holds its gain in the low byte and its setups above it. */
+    private static final int GAIN = 1;
+    private static final int SETUP = 1 << 8;
+    private static final int GAIN_MASK = SETUP - 1;
+    /** States of a cell relative to the tile a line needs there. */
+    private static final int EMPTY = 0;
+    private static final int RIGHT = 1;
+    private static final int WRONG = 2;
+    /** Random draws {@link #greedyMove(EmptyCells, RandomGenerator)} makes before it looks for a safe move in order. */
+    private static final int SAFE_DRAWS = 8;
+
+    private final BitBoard cells;
+    private final int size;
+    private final int moves;
+    private final int[][] counts;
+    private final MoveSet scoring;
+    private final MoveSet unsafe;
+
+    /**
+     * Indexes the tiles already on the given cells, in time proportional to their number. The index keeps a reference
+     * to the cells and must be told of every later change through {@link #tilePlaced(int)} and
+     * {@link #tileRemoved(int, TileValue)}.
+     *
+     * @param empty The empty cells of the board, which list the filled ones.
+     */
+    public ThreatIndex(BitBoard cells, EmptyCells empty) {
+        this.cells = cells;
+        this.size = cells.size();
+        this.moves = 2 * this.size * this.size;
+        this.counts = new int[(this.moves + PAGE_SIZE - 1) >>> PAGE_SHIFT][];
+        this.scoring = new MoveSet(this.moves);
+        this.unsafe = new MoveSet(this.moves);
+        // Count every cell sharing a line with a tile from scratch, once.
+        IntSet counted = new IntSet();
+        for (int slot = 0; slot < empty.capacity() - empty.size(); slot++) {
+            int filled = empty.getFilled(slot);
+            int row = filled / this.size;
+            int column = filled % this.size;
+            for (int direction = 0; direction < BitBoard.DIRECTIONS; direction++) {
+                for (int distance = -2; distance <= 2; distance++) {
+                    int r = row + distance * BitBoard.rowStep(direction);
+                    int c = column + distance * BitBoard.columnStep(direction);
+                    if (r >= 0 && r < this.size && c >= 0 && c < this.size && counted.add(r * this.size + c)) {
+                        countFromScratch(r * this.size + c);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the index after a tile was placed on the given cell.
+     */
+    public void tilePlaced(int cell) {
+        change(cell, TileValue.None, this.cells.get(cell));
+        for (int tile = 0; tile < 2; tile++) {
+            reclassify(cell * 2 + tile, count(cell * 2 + tile), 0);
+        }
+    }
+
+    /**
+     * Updates the index after the given tile was taken off the given cell.
+     */
+    public void tileRemoved(int cell, TileValue tile) {
+        change(cell, tile, TileValue.None);
+        for (int t = 0; t < 2; t++) {
+            reclassify(cell * 2 + t, 0, count(cell * 2 + t));
+        }
+    }
+
+    /**
+     * @return The number of moves that complete at least one line.
+     */
+    public int scoringCount() {
+        return this.scoring.size();
+    }
+
+    /**
+     * @return The scoring move held in the given slot, for slots {@code 0 <= slot < scoringCount()}.
+     */
+    public int scoringMove(int slot) {
+        return this.scoring.get(slot);
+    }
+
+    /**
+     * @return The number of moves that complete no line but set one up for the opponent.
+     */
+    public int unsafeCount() {
+        return this.unsafe.size();
+    }
+
+    /**
+     * @return True if the move, on an empty cell, completes a line.
+     */
+    public boolean isScoring(int move) {
+        return (count(move) & GAIN_MASK) != 0;
+    }
+
+    /**
+     * @return True if the move, on an empty cell, completes no line but sets one up for the opponent.
+     */
+    public boolean isUnsafe(int move) {
+        int count = count(move);
+        return (count & GAIN_MASK) == 0 && count != 0;
+    }
+
+    /**
+     * @return The number of lines the move, on an empty cell, would complete.
+     */
+    public int gain(int move) {
+        return count(move) & GAIN_MASK;
+    }
+
+    /**
+     * @return The number of lines the move, on an empty cell, would leave for the opponent to complete.
+     */
+    public int setups(int move) {
+        return count(move) / SETUP;
+    }
+
+    /**
+     * @return The largest gain of any move, zero if none scores.
+     */
+    public int bestGain() {
+        int best = 0;
+        for (int slot = 0; slot < this.scoring.size(); slot++) {
+            best = Math.max(best, gain(this.scoring.get(slot)));
+        }
+        return best;
+    }
+
+    /**
+     * Picks a move greedily: the move completing the most lines if any scores, otherwise a random safe move, and
+     * otherwise the unsafe move setting up the fewest lines.
+     *
+     * @param empty The empty cells of the board.
+     */
+    public int greedyMove(EmptyCells empty, RandomGenerator random) {
+        assert (empty.size() > 0) : "greedyMove called on a full board.";
+        if (this.scoring.size() > 0) {
+            int best = this.scoring.get(0);
+            for (int slot = 1; slot < this.scoring.size(); slot++) {
+                int move = this.scoring.get(slot);
+                if (gain(move) > gain(best)) {
+                    best = move;
+                }
+            }
+            return best;
+        }
+        int moves = 2 * empty.size();
+        if (this.unsafe.size() < moves) {
+            // Draw at random while safe moves are common, and search for one once they are rare.
+            for (int draw = 0; draw < SAFE_DRAWS; draw++) {
+                int move = empty.get(random.nextInt(empty.size())) * 2 + random.nextInt(2);
+                if (count(move) == 0) {
+                    return move;
+                }
+            }
+            int start = random.nextInt(moves);
+            for (int i = 0; i < moves; i++) {
+                int slot = (start + i) % moves;
+                int move = empty.get(slot / 2) * 2 + slot % 2;
+                if (count(move) == 0) {
+                    return move;
+                }
+            }
+        }
+        int best = this.unsafe.get(0);
+        for (int slot = 1; slot < this.unsafe.size(); slot++) {
+            int move = this.unsafe.get(slot);
+            if (setups(move) < setups(best)) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adjusts the counts of the cells sharing a line with the given cell, whose tile went from one value to another.
+     * In each line, the other two cells each gain or lose whatever the change makes of that line for them.
+     */
+    private void change(int cell, TileValue from, TileValue to) {
+        int row = cell / this.size;
+        int column = cell % this.size;
+        for (int direction = 0; direction < BitBoard.DIRECTIONS; direction++) {
+            int rowStep = BitBoard.rowStep(direction);
+            int columnStep = BitBoard.columnStep(direction);
+            int step = this.cells.step(direction);
+            for (int position = 0; position <= 2; position++) {
+                int startRow = row - position * rowStep;
+                int startColumn = column - position * columnStep;
+                int endRow = startRow + 2 * rowStep;
+                int endColumn = startColumn + 2 * columnStep;
+                if (startRow < 0 || endRow >= this.size || Math.min(startColumn, endColumn) < 0
+                        || Math.max(startColumn, endColumn) >= this.size) {
+                    continue;
+                }
+                int start = cell - position * step;
+                int before = state(from, position);
+                int after = state(to, position);
+                // Read the other two tiles of the line once; each is the third cell for the other's count.
+                int first = position == 0 ? 1 : 0;
+                int second = position == 2 ? 1 : 2;
+                TileValue firstTile = this.cells.get(start + first * step);
+                TileValue secondTile = this.cells.get(start + second * step);
+                adjust(start + first * step, first, firstTile,
+                        contribution(after, state(secondTile, second)) - contribution(before, state(secondTile, second)));
+                adjust(start + second * step, second, secondTile,
+                        contribution(after, state(firstTile, first)) - contribution(before, state(firstTile, first)));
+            }
+        }
+    }
+
+    /**
+     * Adds the delta to the count of the tile a line needs at the given position of it, on the given cell.
+     */
+    private void adjust(int cell, int position, TileValue tile, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        int move = cell * 2 + (position == 1 ? 1 : 0);
+        int count = count(move);
+        setCount(move, count + delta);
+        if (tile == TileValue.None) {
+            reclassify(move, count, count + delta);
+        }
+    }
+
+    /**
+     * Sums what each line through the cell makes of its two tiles.
+     */
+    private void countFromScratch(int cell) {
+        int row = cell / this.size;
+        int column = cell % this.size;
+        int[] sums = new int[2];
+        for (int direction = 0; direction < BitBoard.DIRECTIONS; direction++) {
+            int rowStep = BitBoard.rowStep(direction);
+            int columnStep = BitBoard.columnStep(direction);
+            int step = this.cells.step(direction);
+            for (int position = 0; position <= 2; position++) {
+                int startRow = row - position * rowStep;
+                int startColumn = column - position * columnStep;
+                int endRow = startRow + 2 * rowStep;
+                int endColumn = startColumn + 2 * columnStep;
+                if (startRow < 0 || endRow >= this.size || Math.min(startColumn, endColumn) < 0
+                        || Math.max(startColumn, endColumn) >= this.size) {
+                    continue;
+                }
+                int start = cell - position * step;
+                int first = position == 0 ? 1 : 0;
+                int second = position == 2 ? 1 : 2;
+                sums[position == 1 ? 1 : 0] += contribution(state(this.cells.get(start + first * step), first),
+                        state(this.cells.get(start + second * step), second));
+            }
+        }
+        for (int tile = 0; tile < 2; tile++) {
+            setCount(cell * 2 + tile, sums[tile]);
+            if (this.cells.isEmpty(cell)) {
+                reclassify(cell * 2 + tile, 0, sums[tile]);
+            }
+        }
+    }
+
+    /**
+     * @return What a line makes of a move, given the states of its other two cells: a gain if both hold the right
+     *         tile, a setup if one does and the other is empty, and nothing otherwise.
+     */
+    private static int contribution(int first, int second) {
+        if (first == WRONG || second == WRONG) {
+            return 0;
+        }
+        switch (first + second) {
+            case 2 * RIGHT: return GAIN;
+            case RIGHT: return SETUP;
+            default: return 0;
+        }
+    }
+
+    /**
+     * @return The state of a tile at the given position of a line, which needs an O in the middle and S at the ends.
+     */
+    private static int state(TileValue tile, int position) {
+        if (tile == TileValue.None) {
+            return EMPTY;
+        }
+        return tile == (position == 1 ? TileValue.O : TileValue.S) ? RIGHT : WRONG;
+    }
+
+    /**
+     * Moves a move on an empty cell between the scoring and unsafe sets as its count changes.
+     */
+    private void reclassify(int move, int before, int after) {
+        boolean wasScoring = (before & GAIN_MASK) != 0;
+        boolean isScoring = (after & GAIN_MASK) != 0;
+        boolean wasUnsafe = !wasScoring && before != 0;
+        boolean isUnsafe = !isScoring && after != 0;
+        if (wasScoring != isScoring) {
+            if (isScoring) this.scoring.add(move); else this.scoring.remove(move);
+        }
+        if (wasUnsafe != isUnsafe) {
+            if (isUnsafe) this.unsafe.add(move); else this.unsafe.remove(move);
+        }
+    }
+
+    private int count(int move) {
+        int[] page = this.counts[move >>> PAGE_SHIFT];
+        return page == null ? 0 : page[move & PAGE_MASK];
+    }
+
+    private void setCount(int move, int count) {
+        int[] page = this.counts[move >>> PAGE_SHIFT];
+        if (page == null) {
+            if (count == 0) {
+                return;
+            }
+            page = new int[Math.min(PAGE_SIZE, this.moves - (move & ~PAGE_MASK))];
+            this.counts[move >>> PAGE_SHIFT] = page;
+        }
+        page[move & PAGE_MASK] = count;
+    }
+
+    /**
+     * Indexed set of moves: members sit densely in an array for iteration, and a paged array maps each move to its
+     * slot plus one, so that untouched pages read as absent and are never allocated.
+     */
+    private static final class MoveSet {
+        private final int capacity;
+        private final int[][] slots;
+        private int[] members = new int[16];
+        private int size;
+
+        MoveSet(int capacity) {
+            this.capacity = capacity;
+            this.slots = new int[(capacity + PAGE_SIZE - 1) >>> PAGE_SHIFT][];
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        int get(int slot) {
+            return this.members[slot];
+        }
+
+        void add(int move) {
+            assert (slot(move) == 0) : String.format("Move %s is already indexed.", move);
+            if (this.size == this.members.length) {
+                this.members = Arrays.copyOf(this.members, 2 * this.size);
+            }
+            this.members[this.size] = move;
+            setSlot(move, ++this.size);
+        }
+
+        void remove(int move) {
+            int slot = slot(move) - 1;
+            assert (slot >= 0) : String.format("Move %s is not indexed.", move);
+            int last = this.members[--this.size];
+            // Fill the gap with the last member.
+            this.members[slot] = last;
+            setSlot(last, slot + 1);
+            setSlot(move, 0);
+        }
+
+        private int slot(int move) {
+            int[] page = this.slots[move >>> PAGE_SHIFT];
+            return page == null ? 0 : page[move & PAGE_MASK];
+        }
+
+        private void setSlot(int move, int slot) {
+            int[] page = this.slots[move >>> PAGE_SHIFT];
+            if (page == null) {
+                page = new int[Math.min(PAGE_SIZE, this.capacity - (move & ~PAGE_MASK))];
+                this.slots[move >>> PAGE_SHIFT] = page;
+            }
+            page[move & PAGE_MASK] = slot;
+        }
+    }
+}
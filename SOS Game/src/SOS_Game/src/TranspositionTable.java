@@ -0,0 +1,81 @@
+package SOS_Game.src;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table for {@link SearchEngine}.
+ * <p>
+ * Entries are packed into two parallel {@code long} arrays indexed by the low bits of the Zobrist hash, so the table
+ * never allocates after construction. When two positions share a slot the one searched to the greater depth is kept.
+ * Depths take ten bits, enough for every empty cell of the largest board {@link SearchEngine} searches.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    /** Returned by {@link #probe(long)} when the position is not in the table. */
+    public static final long MISSING = 0L;
+
+    /** The deepest depth an entry records; deeper searches are stored as this deep. */
+    public static final int MAX_DEPTH = 0x3FF;
+
+    private static final long PRESENT = 1L << 63;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param capacity The number of entries, rounded up to a power of two.
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.keys = new long[size];
+        this.entries = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return The packed entry for the given hash, or {@link #MISSING}.
+     */
+    public long probe(long hash) {
+        int slot = (int) hash & this.mask;
+        return this.keys[slot] == hash ? this.entries[slot] : MISSING;
+    }
+
+    public void store(long hash, int depth, int flag, int value, int move) {
+        int slot = (int) hash & this.mask;
+        long existing = this.entries[slot];
+        if (existing != MISSING && this.keys[slot] != hash && depth(existing) > depth) {
+            return;
+        }
+        this.keys[slot] = hash;
+        this.entries[slot] = PRESENT
+                | ((long) (flag & 0x3) << 58)
+                | ((long) Math.min(depth, MAX_DEPTH) << 48)
+                | ((long) (value & 0xFFFF) << 32)
+                | (move & 0xFFFFFFFFL);
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.entries, MISSING);
+    }
+
+    public static int flag(long entry) {
+        return (int) (entry >>> 58) & 0x3;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 48) & MAX_DEPTH;
+    }
+
+    public static int value(long entry) {
+        return (short) (entry >>> 32);
+    }
+
+    public static int move(long entry) {
+        return (int) entry;
+    }
+}
@@ -0,0 +1,27 @@
+package SOS_Game.src;
+
+import SOS_Game.src.BoardTile.TileValue;
+
+/**
+ * Zobrist keys for board positions.
+ * <p>
+ * A position hashes to the XOR of one key per occupied cell, so placing or removing a tile updates the hash with a
+ * single XOR. Keys are derived from the cell and tile by a SplitMix64 finalizer rather than read from a table, which
+ * keeps them identical across boards and threads and costs no memory on large boards.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5DEECE66DL;
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return The key for the given tile sitting in the given cell.
+     */
+    public static long key(int cell, TileValue tile) {
+        long z = SEED + (2L * cell + (tile == TileValue.O ? 1 : 0) + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,273 @@
+package SOS_Game.test;
+
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import SOS_Game.src.BitBoard;
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardSnapshot;
+import SOS_Game.src.BoardTile;
+import SOS_Game.src.Match;
+import SOS_Game.src.Pair;
+import SOS_Game.src.Player;
+import SOS_Game.src.Position;
+
+public class TestBoard {
+    private Board board;
+
+    @Before
+    public void setUp() {
+        board = new Board(9);
+    }
+
+    @Test
+    public void testGeneralGameScoresEachLineOnce() {
+        board = new Board(3);
+        board.setGameMode(Board.GameMode.General);
+
+        // S . S, then an O in the middle completes exactly one line for player two.
+        board.makeMove(0, 0);
+        board.playerTwo.setTile(BoardTile.TileValue.S);
+        board.makeMove(0, 2);
+        board.playerOne.setTile(BoardTile.TileValue.O);
+        board.makeMove(2, 2);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(0, 1);
+
+        assert (board.playerOne.getPoints() == 0);
+        assert (board.playerTwo.getPoints() == 1);
+
+        // Filling (1, 1) with an O does not complete a line; re-checking the board must not re-score the old one.
+        board.playerOne.setTile(BoardTile.TileValue.O);
+        board.makeMove(1, 1);
+        assert (board.playerOne.getPoints() == 0);
+        assert (board.playerTwo.getPoints() == 1);
+    }
+
+    @Test
+    public void testSingleTileCompletesSeveralLines() {
+        board = new Board(3);
+        board.playerOne.setTile(BoardTile.TileValue.S);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+
+        // Player one takes the corners, player two the two edges next to (0, 0).
+        board.makeMove(0, 2);
+        board.makeMove(0, 1);
+        board.makeMove(2, 0);
+        board.makeMove(1, 0);
+
+        // S at (0, 0) closes both the top row and the left column.
+        board.makeMove(0, 0);
+        assert (board.playerOne.getPoints() == 2);
+        assert (board.playerTwo.getPoints() == 0);
+    }
+
+    @Test
+    public void testRegisteredWins() {
+        board = new Board(3);
+        board.makeMove(0, 0);
+        board.makeMove(0, 1);
+        board.makeMove(0, 2);
+
+        ArrayList<Match> wins = board.getWins();
+        assert (wins.size() == 1);
+        assert (wins.get(0).equals(new Match(new Pair(0, 0), new Pair(0, 1), new Pair(0, 2))));
+    }
+
+    @Test
+    public void testEmptyTileIndex() {
+        board = new Board(3);
+        board.makeMove(0, 0);
+        board.makeMove(1, 1);
+        board.makeMove(2, 2);
+
+        ArrayList<Pair> empty = board.getEmptyTiles();
+        assert (board.getEmptyTileCount() == 6);
+        assert (empty.size() == 6);
+        assert (!empty.contains(new Pair(0, 0)) && !empty.contains(new Pair(1, 1)) && !empty.contains(new Pair(2, 2)));
+
+        board.initBoard();
+        assert (board.getEmptyTileCount() == 9);
+        assert (!board.isFull());
+    }
+
+    @Test
+    public void testSeededComputerGamesRepeat() {
+        Board first = new Board(5, new Random(3));
+        Board second = new Board(5, new Random(3));
+        for (Board game : new Board[]{first, second}) {
+            game.playerOne.setStyle(Player.PlayStyle.Computer);
+            game.playerTwo.setStyle(Player.PlayStyle.Computer);
+            game.makeComputerMove();
+        }
+
+        for (int row = 0; row < 5; row++) {
+            for (int col = 0; col < 5; col++) {
+                assert (first.getTile(row, col).getValue() == second.getTile(row, col).getValue());
+            }
+        }
+        assert (first.getGameState() == second.getGameState());
+    }
+
+    @Test
+    public void testLargeBoard() {
+        board = new Board(Board.MAX_BOARD_SIZE);
+        int last = Board.MAX_BOARD_SIZE - 1;
+        board.makeMove(last, last - 2);
+        board.makeMove(last, last - 1);
+        board.makeMove(last, last);
+
+        assert (board.getTile(last, last - 1).getValue() == BoardTile.TileValue.O);
+        assert (board.playerOne.getPoints() == 1);
+        assert (!board.isFull());
+    }
+
+    @Test
+    public void testSparseCellsOnlyAllocateTouchedPages() {
+        BitBoard cells = new BitBoard(10_000);
+        cells.set(cells.index(0, 0), BoardTile.TileValue.S);
+        cells.set(cells.index(5_000, 5_000), BoardTile.TileValue.O);
+        cells.set(cells.index(9_999, 9_999), BoardTile.TileValue.S);
+
+        assert (cells.count() == 3);
+        assert (cells.get(5_000, 5_000) == BoardTile.TileValue.O);
+        assert (cells.get(5_000, 5_001) == BoardTile.TileValue.None);
+        // Three touched cells should cost three pages, not the full 10^8 cell board.
+        assert (cells.allocatedCells() < 1_000_000L);
+    }
+
+    @Test
+    public void testRandomGamesScoreEveryLine() {
+        Random random = new Random(42);
+        for (int game = 0; game < 200; game++) {
+            int size = Board.MIN_BOARD_SIZE + random.nextInt(9 - Board.MIN_BOARD_SIZE + 1);
+            board = new Board(size);
+            while (!board.isFull()) {
+                ArrayList<Pair> empty = board.getEmptyTiles();
+                Pair choice = empty.get(random.nextInt(empty.size()));
+                board.getTurn().setTile(random.nextBoolean() ? BoardTile.TileValue.S : BoardTile.TileValue.O);
+                board.makeMove(choice.first, choice.second);
+            }
+
+            BitBoard cells = new BitBoard(size);
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    cells.set(cells.index(row, col), board.getTile(row, col).getValue());
+                }
+            }
+            int lines = 0;
+            for (int direction = 0; direction < BitBoard.DIRECTIONS; direction++) {
+                for (long word : cells.findLines(direction)) {
+                    lines += Long.bitCount(word);
+                }
+            }
+            assert (board.playerOne.getPoints() + board.playerTwo.getPoints() == lines);
+        }
+    }
+
+    @Test
+    public void testUndoRedoRestoresEveryMove() {
+        Random random = new Random(15);
+        board = new Board(6);
+        ArrayList<String> states = new ArrayList<>();
+        states.add(describe(board));
+        while (!board.isFull()) {
+            ArrayList<Pair> empty = board.getEmptyTiles();
+            Pair choice = empty.get(random.nextInt(empty.size()));
+            board.getTurn().setTile(random.nextBoolean() ? BoardTile.TileValue.S : BoardTile.TileValue.O);
+            board.makeMove(choice.first, choice.second);
+            states.add(describe(board));
+        }
+        assert (board.getWins().size() > 0);
+
+        for (int move = states.size() - 2; move >= 0; move--) {
+            assert (board.undo());
+            assert (describe(board).equals(states.get(move)));
+        }
+        assert (!board.undo());
+        assert (board.toPosition().getHash() == 0L);
+
+        for (int move = 1; move < states.size(); move++) {
+            assert (board.redo());
+            assert (describe(board).equals(states.get(move)));
+        }
+        assert (!board.redo());
+
+        // A new move discards what could have been redone.
+        board.undo();
+        board.undo();
+        Pair free = board.getEmptyTiles().get(0);
+        board.makeMove(free.first, free.second);
+        assert (!board.canRedo());
+
+        board.toggleRecording();
+        assert (!board.canUndo());
+    }
+
+    @Test
+    public void testSnapshotDoesNotFollowTheBoard() throws InterruptedException {
+        board = new Board(5);
+        board.makeMove(0, 0);
+        board.makeMove(0, 1);
+        board.makeMove(0, 2);
+        BoardSnapshot snapshot = board.snapshot();
+
+        // Analysis on another thread while the game goes on.
+        int[] emptyTiles = new int[1];
+        Thread spectator = new Thread(() -> {
+            Position position = snapshot.toPosition();
+            emptyTiles[0] = position.getEmptyCells().size();
+        });
+        spectator.start();
+        board.makeMove(4, 4);
+        board.undo();
+        board.undo();
+        spectator.join();
+
+        assert (emptyTiles[0] == 22);
+        assert (snapshot.getEmptyTileCount() == 22 && snapshot.getEmptyTiles().size() == 22);
+        assert (snapshot.getTile(0, 2).getValue() == BoardTile.TileValue.S);
+        assert (snapshot.getPoints(Position.PLAYER_ONE) == 1 && snapshot.getWins().size() == 1);
+        assert (snapshot.getSide() == Position.PLAYER_TWO);
+        assert (board.getTile(0, 2).getValue() == BoardTile.TileValue.None);
+        assert (board.playerOne.getPoints() == 0);
+
+        snapshot.getTile(0, 0).setValue(BoardTile.TileValue.O);
+        assert (snapshot.getTile(0, 0).getValue() == BoardTile.TileValue.S);
+    }
+
+    private static String describe(Board board) {
+        return String.format("%s %s %s %s %s %s %s", board.toPosition().getHash(), board.getEmptyTileCount(),
+                board.playerOne.getPoints(), board.playerTwo.getPoints(), board.getTurn().getName(),
+                board.getGameState(), board.getWins().size());
+    }
+
+    @Test
+    public void testSetGridStartsFromCleanState() {
+        board = new Board(3);
+        board.setGameMode(Board.GameMode.General);
+        board.makeMove(0, 0);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(0, 1);
+        board.makeMove(0, 2);
+        assert (board.playerOne.getPoints() == 1);
+
+        BoardTile[][] grid = new BoardTile[4][4];
+        grid[1][1] = new BoardTile(BoardTile.TileValue.S);
+        grid[2][3] = new BoardTile(BoardTile.TileValue.O);
+        board.setGrid(grid);
+
+        Board fresh = new Board(4);
+        fresh.makeMove(1, 1);
+        fresh.playerTwo.setTile(BoardTile.TileValue.O);
+        fresh.makeMove(2, 3);
+        assert (board.getHash() == fresh.getHash());
+        assert (board.getWins().isEmpty());
+        assert (board.playerOne.getPoints() == 0 && board.playerTwo.getPoints() == 0);
+        assert (board.getGameState() == Board.State.INIT);
+        assert (board.getTurn() == board.playerOne);
+    }
+}
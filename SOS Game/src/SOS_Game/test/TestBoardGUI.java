@@ -10,6 +10,7 @@ import java.util.Scanner;
 
 import org.junit.Before;
 import org.junit.Test;
+import SOS_Game.src.AsyncFileAppender;
 import SOS_Game.src.Board;
 import SOS_Game.src.GUI;
 import SOS_Game.src.Player;
@@ -286,7 +287,7 @@ public class TestBoardGUI {
     }
 
     @Test
-    public void testRecordGame() {
+    public void testRecordGame() throws InterruptedException {
         String[] initialFileList = Objects.requireNonNull(new File(String.format("%s/recorded/", System.getProperty("user.dir"))).list());
         int initialFileCount = initialFileList.length;
         board = new Board(3);
@@ -298,6 +299,7 @@ public class TestBoardGUI {
         for (int i = 0; i < board.getBoardSize(); i++) {
             board.makeMove(i, 0);
         }
+        AsyncFileAppender.getDefault().sync();
 
         String[] finalFileList = Objects.requireNonNull(new File(String.format("%s/recorded/", System.getProperty("user.dir"))).list());
         Arrays.sort(finalFileList);
@@ -0,0 +1,146 @@
+package SOS_Game.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardMetrics;
+import SOS_Game.src.BoardTile;
+import SOS_Game.src.GameReader;
+import SOS_Game.src.LatencyHistogram;
+import SOS_Game.src.LatencyRecorder;
+import SOS_Game.src.ReplayEngine;
+
+public class TestBoardMetrics {
+    @Test
+    public void testBoardRecordsMovesAndGames() {
+        BoardMetrics metrics = BoardMetrics.getDefault();
+        Board board = new Board(3);
+        board.setGameMode(Board.GameMode.Simple);
+        long wins = metrics.getGamesCompleted(Board.State.PLAYER_ONE_WON);
+        metrics.sample();
+
+        board.makeMove(0, 0);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(0, 1);
+        board.makeMove(0, 2);
+        assert (board.getGameState() == Board.State.PLAYER_ONE_WON);
+
+        metrics.sample();
+        BoardMetrics.Interval interval = metrics.getLastInterval();
+        assert (interval.getMoves() == 3);
+        assert (interval.getMakeMoveLatency().getTotalCount() == 3);
+        assert (interval.getWinDetectionLatency().getTotalCount() == 3);
+        assert (interval.getMovesPerSecond() > 0);
+        assert (metrics.getGamesCompleted(Board.State.PLAYER_ONE_WON) == wins + 1);
+    }
+
+    @Test
+    public void testRedoAndReplayDoNotCountGamesAgain() throws IOException {
+        BoardMetrics metrics = BoardMetrics.getDefault();
+        long draws = metrics.getGamesCompleted(Board.State.DRAW);
+        Board board = new Board(3);
+        board.playerTwo.setTile(BoardTile.TileValue.S);
+        StringBuilder text = new StringBuilder("Board has been initialized at size 3.\n");
+        for (int cell = 0; cell < 9; cell++) {
+            text.append(String.format("%s: (%s,%s)\n", board.getTurn(), cell / 3, cell % 3));
+            board.makeMove(cell / 3, cell % 3);
+        }
+        assert (board.getGameState() == Board.State.DRAW);
+        assert (metrics.getGamesCompleted(Board.State.DRAW) == draws + 1);
+
+        board.undo();
+        board.redo();
+        assert (board.getGameState() == Board.State.DRAW);
+
+        File file = File.createTempFile("recording", ".sos");
+        try {
+            Files.write(file.toPath(), text.toString().getBytes());
+            ReplayEngine replay = new ReplayEngine(new GameReader(file));
+            replay.fastForward();
+            replay.stepBack();
+            replay.stepForward();
+            assert (replay.getBoard().getGameState() == Board.State.DRAW);
+        } finally {
+            file.delete();
+        }
+        assert (metrics.getGamesCompleted(Board.State.DRAW) == draws + 1);
+    }
+
+    @Test
+    public void testNewGameAfterReplayIsCounted() throws IOException {
+        BoardMetrics metrics = BoardMetrics.getDefault();
+        File file = File.createTempFile("recording", ".sos");
+        ReplayEngine replay;
+        try {
+            Files.write(file.toPath(), "Board has been initialized at size 3.\nPlayer 1 (S, Human): (1,1)\n".getBytes());
+            replay = new ReplayEngine(new GameReader(file));
+        } finally {
+            file.delete();
+        }
+        replay.fastForward();
+
+        Board board = replay.getBoard();
+        board.initBoard();
+        board.playerTwo.setTile(BoardTile.TileValue.S);
+        long draws = metrics.getGamesCompleted(Board.State.DRAW);
+        for (int cell = 0; cell < 9; cell++) {
+            board.makeMove(cell / 3, cell % 3);
+        }
+        assert (board.getGameState() == Board.State.DRAW);
+        assert (metrics.getGamesCompleted(Board.State.DRAW) == draws + 1);
+    }
+
+    @Test
+    public void testRecorderCountsEveryThread() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 100_000; i++) {
+                    recorder.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram histogram = recorder.getIntervalHistogram();
+        assert (histogram.getTotalCount() == 400_000);
+        assert (histogram.getMax() == 100_000);
+        assert (histogram.getMin() == 1);
+        assert (Math.abs(histogram.getValueAtPercentile(50) - 50_000) <= 50_000 / 64);
+        assert (recorder.getIntervalHistogram().getTotalCount() == 0);
+    }
+
+    @Test
+    public void testMetricsArePublishedOverJmx() throws JMException {
+        BoardMetrics.register();
+        new Board(3).makeMove(1, 1);
+        BoardMetrics.getDefault().sample();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(BoardMetrics.OBJECT_NAME);
+        assert ((Long) server.getAttribute(name, "MovesPlayed") > 0);
+        CompositeData latency = (CompositeData) server.getAttribute(name, "MakeMoveLatency");
+        assert ((Long) latency.get("count") > 0);
+        assert ((Double) latency.get("p99") > 0);
+        TabularData games = (TabularData) server.getAttribute(name, "GamesCompleted");
+        assert (games.size() == 3);
+    }
+}
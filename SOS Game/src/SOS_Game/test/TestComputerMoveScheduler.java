@@ -0,0 +1,106 @@
+package SOS_Game.test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile.TileValue;
+import SOS_Game.src.ComputerMoveScheduler;
+import SOS_Game.src.Player;
+
+public class TestComputerMoveScheduler {
+    private ExecutorService results;
+    private Semaphore moves;
+    private ComputerMoveScheduler computer;
+
+    @Before
+    public void setUp() {
+        this.results = Executors.newSingleThreadExecutor();
+        this.moves = new Semaphore(0);
+        this.computer = new ComputerMoveScheduler(this.results, this.moves::release);
+    }
+
+    @After
+    public void tearDown() {
+        this.computer.shutdown();
+        this.results.shutdownNow();
+    }
+
+    @Test
+    public void testComputersPlayWholeGameInBackground() throws InterruptedException, ExecutionException {
+        Board board = new Board(5);
+        board.playerOne.setStyle(Player.PlayStyle.Computer);
+        board.playerTwo.setStyle(Player.PlayStyle.Computer);
+
+        // The board only changes on the result executor, so schedule there too.
+        this.results.execute(() -> this.computer.schedule(board));
+        for (int move = 0; move < 25; move++) {
+            assert (this.moves.tryAcquire(5, TimeUnit.SECONDS)) : move;
+        }
+        assert (this.results.submit(() -> board.isFull() && !this.computer.isThinking()).get());
+        assert (!this.moves.tryAcquire(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testHumanMoveIsAnswered() throws InterruptedException {
+        Board board = new Board(3);
+        board.setGameMode(Board.GameMode.General);
+        board.playerTwo.setStyle(Player.PlayStyle.Search);
+        this.computer.setTimeBudget(50);
+
+        board.playMove(1, 1);
+        assert (board.getTurn() == board.playerTwo);
+        this.computer.schedule(board);
+        assert (this.computer.isThinking());
+
+        assert (this.moves.tryAcquire(5, TimeUnit.SECONDS));
+        assert (!this.computer.isThinking());
+        assert (board.getEmptyTiles().size() == 7);
+        assert (board.getTurn() == board.playerOne);
+    }
+
+    @Test
+    public void testCancelDropsTheMoveAndStopsTheSearch() throws InterruptedException {
+        Board board = new Board(9);
+        board.setGameMode(Board.GameMode.General);
+        board.playerOne.setStyle(Player.PlayStyle.Search);
+        this.computer.setTimeBudget(60_000);
+
+        this.computer.schedule(board);
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        this.computer.cancel();
+        assert (!this.computer.isThinking());
+
+        // The interrupted search frees the thinker thread long before its budget is up.
+        board.playerOne.setStyle(Player.PlayStyle.Computer);
+        this.computer.schedule(board);
+        assert (this.moves.tryAcquire(5, TimeUnit.SECONDS));
+        assert (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assert (board.getEmptyTiles().size() == 80);
+        assert (!this.moves.tryAcquire(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testComputerTakesScoringMove() throws InterruptedException {
+        Board board = new Board(5);
+        board.setGameMode(Board.GameMode.General);
+        board.playerOne.setTile(TileValue.S);
+        board.makeMove(2, 0);
+        board.playerTwo.setTile(TileValue.O);
+        board.makeMove(2, 1);
+        board.playerOne.setStyle(Player.PlayStyle.Computer);
+
+        this.computer.schedule(board);
+        assert (this.moves.tryAcquire(5, TimeUnit.SECONDS));
+        assert (board.getTile(2, 2).getValue() == TileValue.S);
+        assert (board.playerOne.getPoints() == 1);
+    }
+}
@@ -0,0 +1,75 @@
+package SOS_Game.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import SOS_Game.src.BinaryGameReader;
+import SOS_Game.src.BinaryGameWriter;
+import SOS_Game.src.Board;
+import SOS_Game.src.Player;
+
+public class TestFlightEvents {
+    @Test
+    public void testMovesSearchesAndReadsAreRecorded() throws IOException {
+        Path dump = Files.createTempFile("sos-events", ".jfr");
+        File game = File.createTempFile("sos-events", ".sosb");
+        List<RecordedEvent> events;
+        long gameBytes;
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"Move", "ComputerMove", "Search", "RecordingIO"}) {
+                recording.enable("SOS_Game." + name);
+            }
+            recording.start();
+
+            Board board = new Board(4);
+            board.setGameMode(Board.GameMode.General);
+            board.playerTwo.setStyle(Player.PlayStyle.Search);
+            board.makeMove(0, 0);
+            BinaryGameWriter writer = new BinaryGameWriter(board, null);
+            writer.writeMove(0, 0, board.playerOne);
+            Files.write(game.toPath(), writer.toByteArray());
+            assert (new BinaryGameReader(game).getMoves().size() == 1);
+            gameBytes = game.length();
+            recording.stop();
+            recording.dump(dump);
+            events = RecordingFile.readAllEvents(dump);
+        } finally {
+            Files.deleteIfExists(dump);
+            game.delete();
+        }
+
+        List<RecordedEvent> moves = named(events, "SOS_Game.Move");
+        assert (moves.size() == 2);
+        assert (moves.get(0).getInt("moveIndex") == 1 && moves.get(1).getInt("moveIndex") == 2);
+        assert (moves.get(0).getInt("boardSize") == 4);
+        assert (moves.get(0).getString("mode").equals("General"));
+
+        List<RecordedEvent> computerMoves = named(events, "SOS_Game.ComputerMove");
+        assert (computerMoves.size() == 1);
+        assert (computerMoves.get(0).getString("style").equals("Search"));
+
+        List<RecordedEvent> searches = named(events, "SOS_Game.Search");
+        assert (searches.size() == 1);
+        assert (searches.get(0).getLong("nodes") > 0);
+        assert (searches.get(0).getInt("emptyCells") == 15);
+
+        List<RecordedEvent> reads = named(events, "SOS_Game.RecordingIO");
+        assert (reads.size() == 1);
+        assert (reads.get(0).getString("operation").equals("read"));
+        assert (reads.get(0).getLong("bytes") == gameBytes);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,330 @@
+package SOS_Game.test;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import SOS_Game.src.AsyncFileAppender;
+import SOS_Game.src.BinaryGameReader;
+import SOS_Game.src.BinaryGameWriter;
+import SOS_Game.src.Board;
+import SOS_Game.src.GameArchive;
+import SOS_Game.src.BoardTile;
+import SOS_Game.src.GameReader;
+import SOS_Game.src.GameStreamReader;
+import SOS_Game.src.GameWriter;
+import SOS_Game.src.Player;
+import SOS_Game.src.ReplayEngine;
+
+public class TestGameRecording {
+    private Board board;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        board = new Board(5);
+        board.setGameMode(Board.GameMode.Simple);
+        file = File.createTempFile("recording", ".sos");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testTextRecordingIsAppendedDuringGame() throws IOException, InterruptedException {
+        GameWriter writer = new GameWriter(file);
+        writer.writeMessage("Board has been initialized at size 5.\n");
+        AsyncFileAppender.getDefault().sync();
+        assert (!file.exists());
+
+        writer.writeMove(0, 0, board.playerOne);
+        AsyncFileAppender.getDefault().sync();
+        assert (new String(Files.readAllBytes(file.toPath())).equals(
+                "Board has been initialized at size 5.\nPlayer 1 (S, Human): (0,0)\n"));
+
+        writer.writeMove(1, 2, board.playerTwo);
+        writer.writeMessage("Player 2 has won!\n");
+        writer.writeToFile();
+        writer.close();
+        AsyncFileAppender.getDefault().sync();
+        GameReader reader = new GameReader(file);
+        assert (reader.getBoardSize() == 5);
+        assert (reader.getMoves().size() == 2);
+        assert (reader.getMoves().get(1).row == 1 && reader.getMoves().get(1).column == 2);
+    }
+
+    @Test
+    public void testEveryBatchFsyncPolicy() throws InterruptedException, IOException {
+        AsyncFileAppender appender = new AsyncFileAppender(2);
+        appender.setFsyncPolicy(AsyncFileAppender.FsyncPolicy.EveryBatch);
+        AsyncFileAppender.Handle handle = appender.open(file);
+        for (int i = 0; i < 100; i++) {
+            handle.append(new byte[]{(byte) i});
+        }
+        handle.close();
+        appender.sync();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        assert (bytes.length == 100);
+        for (int i = 0; i < 100; i++) {
+            assert (bytes[i] == (byte) i);
+        }
+    }
+
+    @Test
+    public void testTasksRunOnIoThreadInOrder() throws InterruptedException {
+        AsyncFileAppender appender = new AsyncFileAppender(16);
+        AsyncFileAppender.Handle handle = appender.open(file);
+        handle.append(new byte[]{1, 2, 3});
+        long[] length = new long[1];
+        String[] thread = new String[1];
+        appender.execute(() -> {
+            length[0] = file.length();
+            thread[0] = Thread.currentThread().getName();
+        });
+        handle.close();
+        appender.sync();
+
+        assert (length[0] == 3);
+        assert (thread[0].equals("sos-recorder"));
+    }
+
+    @Test
+    public void testBacklogIsBoundedAndSynced() throws InterruptedException {
+        AsyncFileAppender appender = new AsyncFileAppender(1);
+        AsyncFileAppender.Handle handle = appender.open(file);
+
+        // With the I/O thread held up, the first append fills the queue and the second must wait rather than grow.
+        CountDownLatch release = holdUp(appender);
+        Thread writer = new Thread(() -> {
+            handle.append(new byte[10]);
+            handle.append(new byte[AsyncFileAppender.MAX_PENDING]);
+        });
+        writer.start();
+        writer.join(200);
+        assert (writer.isAlive());
+        release.countDown();
+        writer.join();
+
+        // Bytes held back by the handle are written by sync, without waiting for another append.
+        release = holdUp(appender);
+        handle.append(new byte[5]);
+        handle.append(new byte[7]);
+        release.countDown();
+        appender.sync();
+        assert (file.length() == 22 + AsyncFileAppender.MAX_PENDING) : file.length();
+        handle.close();
+    }
+
+    /**
+     * @return The latch that lets the appender's I/O thread, blocked by the time this returns, go on.
+     */
+    private static CountDownLatch holdUp(AsyncFileAppender appender) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        appender.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        return release;
+    }
+
+    @Test
+    public void testStreamingTextReader() throws IOException {
+        String recording = "Board has been initialized at size 12.\n" +
+                "Game mode has been switched to Simple.\n" +
+                "Player 1 (S, Human): (0,0)\n" +
+                "Player 2 (O, Computer): (10,11)\n" +
+                "Player 1 (S, Search): (11,2)\n" +
+                "Player 1 has won!\n";
+
+        try (GameStreamReader reader = new GameStreamReader(new StringReader(recording))) {
+            assert (reader.getBoardSize() == 12);
+            assert (reader.getGameMode() == Board.GameMode.Simple);
+
+            GameReader.Move first = reader.next();
+            assert (first.player.equals("1") && first.row == 0 && first.column == 0);
+            assert (reader.stream().filter(move -> move.row > 9).count() == 2);
+            assert (!reader.hasNext());
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException, InterruptedException {
+        BinaryGameWriter writer = new BinaryGameWriter(board, file);
+        board.playerTwo.setStyle(Player.PlayStyle.Computer);
+        writer.writeMove(0, 0, board.playerOne);
+        board.playerTwo.setTile(BoardTile.TileValue.S);
+        writer.writeMove(4, 3, board.playerTwo);
+
+        BinaryGameReader reader = new BinaryGameReader(new ByteArrayInputStream(writer.toByteArray()));
+        ArrayList<GameReader.Move> moves = reader.getMoves();
+
+        assert (reader.getBoardSize() == 5);
+        assert (reader.getGameMode() == Board.GameMode.Simple);
+        assert (reader.getPlayerOneName().equals("Player 1"));
+        assert (moves.size() == 2);
+        assert (moves.get(0).player.equals("1") && moves.get(0).tile.equals("S") && moves.get(0).style.equals("Human"));
+        assert (moves.get(0).row == 0 && moves.get(0).column == 0);
+        assert (moves.get(1).player.equals("2") && moves.get(1).tile.equals("S") && moves.get(1).style.equals("Computer"));
+        assert (moves.get(1).row == 4 && moves.get(1).column == 3);
+
+        writer.close();
+        AsyncFileAppender.getDefault().sync();
+        assert (new BinaryGameReader(file).getMoves().size() == 2);
+    }
+
+    @Test
+    public void testBinaryMovesAreCompact() {
+        board = new Board(9);
+        BinaryGameWriter writer = new BinaryGameWriter(board, file);
+        int header = writer.toByteArray().length;
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                writer.writeMove(row, col, board.playerOne);
+            }
+        }
+
+        assert (writer.toByteArray().length - header <= 2 * 81);
+        writer.close();
+    }
+
+    @Test
+    public void testArchiveLookups() throws IOException {
+        File directory = Files.createTempDirectory("archive").toFile();
+        try {
+            try (GameArchive archive = new GameArchive(directory)) {
+                BinaryGameWriter writer = new BinaryGameWriter(board, null);
+                writer.writeMove(2, 3, board.playerOne);
+                assert (archive.append(writer.toByteArray(), 1000, 5, Board.GameMode.Simple) == 0);
+
+                String text = "Board has been initialized at size 7.\n" +
+                        "Player 1 (O, Computer): (6,6)\n" +
+                        "Player 2 (S, Search): (0,1)\n";
+                Files.write(file.toPath(), text.getBytes());
+                assert (archive.append(BinaryGameWriter.encode(new GameReader(file)), 2000, 7,
+                        Board.GameMode.General) == 1);
+                // Earlier timestamps are raised so that time ranges stay sorted.
+                assert (archive.append(writer.toByteArray(), 1500, 5, Board.GameMode.General) == 2);
+            }
+
+            try (GameArchive archive = new GameArchive(directory)) {
+                assert (archive.size() == 3);
+                assert (archive.getTimestamp(2) == 2000);
+                assert (Arrays.equals(archive.findBetween(1000, 1999), new int[]{0}));
+                assert (Arrays.equals(archive.findBetween(2000, Long.MAX_VALUE), new int[]{1, 2}));
+                assert (Arrays.equals(archive.find(5, null), new int[]{0, 2}));
+                assert (Arrays.equals(archive.find(0, Board.GameMode.General), new int[]{1, 2}));
+
+                BinaryGameReader game = archive.open(1);
+                assert (game.getBoardSize() == 7);
+                assert (game.getMoves().size() == 2);
+                assert (game.getMoves().get(0).tile.equals("O") && game.getMoves().get(0).style.equals("Computer"));
+                assert (game.getMoves().get(1).row == 0 && game.getMoves().get(1).column == 1);
+                assert (archive.open(0).getMoves().get(0).column == 3);
+            }
+        } finally {
+            for (File child : Objects.requireNonNull(directory.listFiles())) {
+                child.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testReplaySeeksToEveryMove() throws IOException {
+        int size = 6;
+        Random random = new Random(14);
+        ArrayList<Integer> cells = new ArrayList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            cells.add(cell);
+        }
+        Collections.shuffle(cells, random);
+
+        StringBuilder text = new StringBuilder(String.format("Board has been initialized at size %s.\n", size));
+        Board reference = new Board(size);
+        ArrayList<String> states = new ArrayList<>();
+        states.add(describe(reference));
+        for (int i = 0; i < cells.size(); i++) {
+            int row = cells.get(i) / size;
+            int column = cells.get(i) % size;
+            reference.getTurn().setTile(random.nextBoolean() ? BoardTile.TileValue.S : BoardTile.TileValue.O);
+            text.append(String.format("%s: (%s,%s)\n", reference.getTurn(), row, column));
+            reference.makeMove(row, column);
+            states.add(describe(reference));
+        }
+        Files.write(file.toPath(), text.toString().getBytes());
+
+        ReplayEngine replay = new ReplayEngine(new GameReader(file), 5);
+        assert (replay.getMoveCount() == size * size);
+        assert (describe(replay.getBoard()).equals(states.get(0)));
+        replay.fastForward();
+        assert (describe(replay.getBoard()).equals(states.get(size * size)));
+        for (int i = 0; i < 200; i++) {
+            int position = random.nextInt(size * size + 1);
+            replay.seek(position);
+            assert (describe(replay.getBoard()).equals(states.get(position))) : position;
+        }
+        replay.seek(10);
+        assert (replay.stepBack() && describe(replay.getBoard()).equals(states.get(9)));
+        assert (replay.stepForward() && replay.stepForward() && describe(replay.getBoard()).equals(states.get(11)));
+        replay.rewind();
+        assert (!replay.stepBack());
+    }
+
+    private static String describe(Board board) {
+        StringBuilder state = new StringBuilder();
+        for (int row = 0; row < board.getBoardSize(); row++) {
+            for (int col = 0; col < board.getBoardSize(); col++) {
+                state.append(board.getTile(row, col).getValue().ordinal());
+            }
+        }
+        return state.append(' ').append(board.playerOne.getPoints()).append(' ').append(board.playerTwo.getPoints())
+                .append(' ').append(board.getTurn().getName()).append(' ').append(board.getGameState())
+                .append(' ').append(board.getWins().size()).toString();
+    }
+
+    @Test
+    public void testBinaryReaderRejectsUnknownMode() {
+        byte[] bytes = new BinaryGameWriter(board, null).toByteArray();
+        // The mode byte follows the magic, the version and the one-byte board size.
+        bytes[6] = 9;
+        try {
+            new BinaryGameReader(new ByteArrayInputStream(bytes));
+            assert false;
+        } catch (IOException e) {
+            assert (e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test
+    public void testBinaryReaderRejectsText() {
+        byte[] text = "Board has been initialized at size 3.\n".getBytes();
+        try {
+            new BinaryGameReader(new ByteArrayInputStream(text));
+            assert false;
+        } catch (IOException e) {
+            assert (e.getMessage().contains("Not a binary"));
+        }
+    }
+}
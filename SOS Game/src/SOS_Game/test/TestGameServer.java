@@ -0,0 +1,228 @@
+package SOS_Game.test;
+
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile.TileValue;
+import SOS_Game.src.GameServer;
+import SOS_Game.src.LatencyHistogram;
+import SOS_Game.src.LoadTest;
+import SOS_Game.src.Position;
+
+public class TestGameServer {
+    private GameServer server;
+    private Socket socket;
+    private BufferedReader in;
+    private PrintWriter out;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new GameServer(0, 2, 5);
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out = new PrintWriter(socket.getOutputStream(), true);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        socket.close();
+        server.close();
+    }
+
+    private String request(String line) throws IOException {
+        out.println(line);
+        return in.readLine();
+    }
+
+    @Test
+    public void testHumanGame() throws IOException {
+        String created = request("NEW 3 Simple");
+        assert (created.startsWith("OK ")) : created;
+        String id = created.substring(3);
+
+        String first = request(String.format("MOVE %s 0 0 S", id));
+        assert (first.equals(String.format("STATE %s 3 Simple PLAYING 2 0 0 S........", id))) : first;
+        assert (request(String.format("MOVE %s 0 0 O", id)).startsWith("ERROR"));
+        request(String.format("MOVE %s 0 1 O", id));
+        String won = request(String.format("MOVE %s 0 2 S", id));
+        assert (won.equals(String.format("STATE %s 3 Simple PLAYER_ONE_WON 2 1 0 SOS......", id))) : won;
+        assert (request(String.format("MOVE %s 1 1 S", id)).startsWith("ERROR"));
+
+        assert (request(String.format("CLOSE %s", id)).equals("OK"));
+        assert (request(String.format("STATE %s", id)).startsWith("ERROR"));
+        assert (request("NEW 20 Simple").startsWith("ERROR"));
+        assert (server.getSessionCount() == 0);
+    }
+
+    @Test
+    public void testOnlyCreatorClosesGame() throws IOException {
+        String id = request("NEW 3 Simple").substring(3);
+        try (Socket other = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader otherIn = new BufferedReader(new InputStreamReader(other.getInputStream()));
+            PrintWriter otherOut = new PrintWriter(other.getOutputStream(), true);
+            otherOut.println(String.format("CLOSE %s", id));
+            assert (otherIn.readLine().startsWith("ERROR"));
+            otherOut.println(String.format("STATE %s", id));
+            assert (otherIn.readLine().startsWith("STATE"));
+        }
+        assert (request(String.format("CLOSE %s", id)).equals("OK"));
+        assert (server.getSessionCount() == 0);
+    }
+
+    @Test
+    public void testDisconnectEndsOwnedGames() throws IOException, InterruptedException {
+        try (Socket other = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader otherIn = new BufferedReader(new InputStreamReader(other.getInputStream()));
+            PrintWriter otherOut = new PrintWriter(other.getOutputStream(), true);
+            otherOut.println("NEW 3 Simple");
+            assert (otherIn.readLine().startsWith("OK "));
+        }
+        assert (request("NEW 3 Simple").startsWith("OK "));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getSessionCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert (server.getSessionCount() == 1);
+    }
+
+    @Test
+    public void testBoardSizeLimitIsTheServers() throws IOException {
+        String created = request(String.format("NEW %s Simple", GameServer.MAX_BOARD_SIZE));
+        assert (created.startsWith("OK ")) : created;
+        assert (request(String.format("NEW %s Simple", GameServer.MAX_BOARD_SIZE + 1)).startsWith("ERROR"));
+    }
+
+    @Test
+    public void testComputerRepliesToSubscribers() throws IOException {
+        String id = request("NEW 4 General Human Search").substring(3);
+        assert (request(String.format("SUBSCRIBE %s", id)).equals("OK"));
+
+        out.println(String.format("MOVE %s 1 1 O", id));
+        // The move is published, answered and then the computer's reply is published, in some order.
+        String reply = null;
+        String computerMove = null;
+        while (reply == null || computerMove == null) {
+            String line = in.readLine();
+            if (line.startsWith("STATE")) {
+                reply = line;
+            } else if (line.startsWith("EVENT") && line.split(" ")[5].equals("1")) {
+                computerMove = line;
+            }
+        }
+        String cells = computerMove.split(" ")[8];
+        assert (cells.chars().filter(c -> c != '.').count() == 2) : computerMove;
+        assert (request(String.format("MOVE %s 1 1 S", id)).startsWith("ERROR"));
+    }
+
+    @Test
+    public void testComputerTakesScoringMove() throws IOException {
+        String id = request("NEW 4 Simple Human Computer").substring(3);
+        assert (request(String.format("SUBSCRIBE %s", id)).equals("OK"));
+        out.println(String.format("MOVE %s 0 0 S", id));
+        String[] reply = nextEventWithTiles(2);
+
+        // Leave the computer a line to complete, without completing one ourselves.
+        Position position = new Position(4, Board.GameMode.Simple);
+        for (int cell = 0; cell < 16; cell++) {
+            char tile = reply[8].charAt(cell);
+            if (tile != '.') {
+                position.play(Position.move(cell, tile == 'S' ? TileValue.S : TileValue.O));
+            }
+        }
+        int setup = -1;
+        for (int move = 0; move < 32 && setup < 0; move++) {
+            if (position.getTile(Position.moveCell(move)) == TileValue.None && position.gain(move) == 0) {
+                int gained = position.play(move);
+                if (position.getThreats().scoringCount() > 0) {
+                    setup = move;
+                }
+                position.undo(move, gained);
+            }
+        }
+        int cell = Position.moveCell(setup);
+        out.println(String.format("MOVE %s %s %s %s", id, cell / 4, cell % 4, Position.moveTile(setup)));
+        String[] won = nextEventWithTiles(4);
+        assert (won[4].equals("PLAYER_TWO_WON")) : String.join(" ", won);
+    }
+
+    /**
+     * @return The fields of the next {@code EVENT} line that shows the given number of tiles on the board.
+     */
+    private String[] nextEventWithTiles(int tiles) throws IOException {
+        while (true) {
+            String[] words = in.readLine().split(" ");
+            if (words[0].equals("EVENT") && words[8].chars().filter(c -> c != '.').count() == tiles) {
+                return words;
+            }
+        }
+    }
+
+    @Test
+    public void testCloseStopsMonteCarloWorkers() throws IOException, InterruptedException {
+        long before = monteCarloThreads();
+        String id = request("NEW 4 General Human MonteCarlo").substring(3);
+        assert (request(String.format("SUBSCRIBE %s", id)).equals("OK"));
+        out.println(String.format("MOVE %s 1 1 O", id));
+        String line;
+        do {
+            line = in.readLine();
+        } while (!(line.startsWith("EVENT") && line.split(" ")[5].equals("1")));
+        assert (monteCarloThreads() > before);
+
+        server.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (monteCarloThreads() > before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assert (monteCarloThreads() <= before);
+    }
+
+    private static long monteCarloThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.isAlive() && thread.getName().equals("sos-mcts")).count();
+    }
+
+    @Test
+    public void testLoadTestPlaysWholeGames() throws IOException, InterruptedException {
+        LoadTest test = new LoadTest(server.getPort(), 4, 0.3, true);
+        LoadTest.Result result = test.run(3, Board.GameMode.General);
+
+        // Scripted games fill every cell of the board.
+        assert (result.getGames() > 0);
+        assert (result.getMoves() == 9 * result.getGames());
+        assert (result.getLatency().getValueAtPercentile(50) > 0);
+        assert (server.getSessionCount() == 0);
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assert (histogram.getTotalCount() == 100_000);
+        assert (histogram.getMax() == 100_000_000L);
+        for (double percentile : new double[]{50, 99, 99.9}) {
+            double expected = percentile * 1_000_000;
+            assert (Math.abs(histogram.getValueAtPercentile(percentile) - expected) <= expected / 64) : percentile;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.outputPercentileDistribution(new PrintStream(bytes), 1e6);
+        String output = bytes.toString();
+        assert (output.contains("Value     Percentile TotalCount 1/(1-Percentile)"));
+        assert (output.contains("Total count    =       100000"));
+    }
+}
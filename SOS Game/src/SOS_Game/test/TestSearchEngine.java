@@ -0,0 +1,150 @@
+package SOS_Game.test;
+
+
+import org.junit.Before;
+import org.junit.Test;
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile;
+import SOS_Game.src.MonteCarloEngine;
+import SOS_Game.src.Player;
+import SOS_Game.src.Position;
+import SOS_Game.src.SearchEngine;
+import SOS_Game.src.Simulator;
+import SOS_Game.src.TranspositionTable;
+
+public class TestSearchEngine {
+    private Board board;
+    private SearchEngine engine;
+
+    @Before
+    public void setUp() {
+        board = new Board(3);
+        engine = new SearchEngine(1 << 16, 10);
+    }
+
+    @Test
+    public void testTakesImmediateWinInSimpleGame() {
+        board.setGameMode(Board.GameMode.Simple);
+        board.makeMove(0, 0);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(2, 2);
+
+        // Leaves S O . on the top row with player one to move, so an S at (0, 2) wins at once.
+        board.playerOne.setTile(BoardTile.TileValue.O);
+        board.makeMove(1, 1);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(0, 1);
+
+        int move = engine.bestMove(board.toPosition());
+        assert (Position.moveCell(move) == 2);
+        assert (Position.moveTile(move) == BoardTile.TileValue.S);
+        assert (engine.getLastValue() == SearchEngine.WIN);
+    }
+
+    @Test
+    public void testMonteCarloTakesImmediateWin() {
+        board.setGameMode(Board.GameMode.Simple);
+        board.makeMove(0, 0);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(0, 1);
+
+        // S O . on the top row with player one to move.
+        MonteCarloEngine monteCarlo = new MonteCarloEngine(2, 50);
+        int move = monteCarlo.bestMove(board.toPosition());
+        monteCarlo.shutdown();
+
+        assert (Position.moveCell(move) == 2);
+        assert (Position.moveTile(move) == BoardTile.TileValue.S);
+        assert (monteCarlo.getLastPlayouts() > 0);
+    }
+
+    @Test
+    public void testPositionIsRestoredAfterSearch() {
+        board.makeMove(1, 1);
+        Position position = board.toPosition();
+        long hash = position.getHash();
+        int empty = position.getEmptyCells().size();
+
+        engine.bestMove(position);
+
+        assert (position.getHash() == hash);
+        assert (position.getEmptyCells().size() == empty);
+        assert (position.getPoints(Position.PLAYER_ONE) == 0 && position.getPoints(Position.PLAYER_TWO) == 0);
+    }
+
+    @Test
+    public void testSimulatorTalliesEveryGame() {
+        Simulator simulator = new Simulator(4, Board.GameMode.General, Player.PlayStyle.Computer, Player.PlayStyle.Computer, 2);
+        simulator.setSeed(7);
+        Simulator.Result result = simulator.run(1001);
+
+        assert (result.getGames() == 1001);
+        assert (result.getPlayerOneWins() + result.getPlayerTwoWins() + result.getDraws() == 1001);
+    }
+
+    @Test
+    public void testSearchPlaysFullGame() {
+        board.setGameMode(Board.GameMode.General);
+        board.playerOne.setStyle(Player.PlayStyle.Search);
+        board.playerTwo.setStyle(Player.PlayStyle.Computer);
+
+        board.makeComputerMove();
+
+        assert (board.isFull());
+        assert (board.getGameState() != Board.State.INIT && board.getGameState() != Board.State.PLAYING);
+    }
+
+    @Test
+    public void testLargeBoardGetsGreedyMoveInsteadOfSearch() {
+        board = new Board(2000);
+        board.setGameMode(Board.GameMode.General);
+        board.makeMove(500, 500);
+        board.playerTwo.setTile(BoardTile.TileValue.O);
+        board.makeMove(500, 501);
+        board.playerOne.setStyle(Player.PlayStyle.Search);
+
+        // A search would allocate move lists for four million empty cells a ply.
+        board.makeComputerMove();
+
+        assert (board.getTile(500, 502).getValue() == BoardTile.TileValue.S);
+        assert (board.playerOne.getPoints() == 1);
+
+        Position position = new Position(SearchEngine.MAX_BOARD_SIZE + 1, Board.GameMode.Simple);
+        engine.bestMove(position);
+        assert (engine.getLastDepth() == 0 && engine.getNodes() == 0);
+    }
+
+    @Test
+    public void testTableKeepsDepthsOfLargestBoard() {
+        int deepest = SearchEngine.MAX_BOARD_SIZE * SearchEngine.MAX_BOARD_SIZE;
+        TranspositionTable table = new TranspositionTable(16);
+        table.store(3, deepest, TranspositionTable.LOWER_BOUND, -SearchEngine.WIN, 511);
+        long entry = table.probe(3);
+        assert (TranspositionTable.depth(entry) == deepest);
+        assert (TranspositionTable.flag(entry) == TranspositionTable.LOWER_BOUND);
+        assert (TranspositionTable.value(entry) == -SearchEngine.WIN && TranspositionTable.move(entry) == 511);
+
+        // A shallower position sharing the slot does not replace the deep one.
+        table.store(3 + 16, 1, TranspositionTable.EXACT, 0, 0);
+        assert (TranspositionTable.depth(table.probe(3)) == deepest);
+        table.store(3, TranspositionTable.MAX_DEPTH + 1, TranspositionTable.EXACT, 0, 0);
+        assert (TranspositionTable.depth(table.probe(3)) == TranspositionTable.MAX_DEPTH);
+    }
+
+    @Test
+    public void testMonteCarloBoardsShareOneWorkerPool() {
+        long[] threads = new long[4];
+        for (int game = 0; game < threads.length; game++) {
+            board = new Board(4);
+            board.playerTwo.setStyle(Player.PlayStyle.MonteCarlo);
+            board.makeMove(0, 0);
+            assert (board.getEmptyTileCount() == 14);
+            threads[game] = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.isAlive() && thread.getName().equals("sos-mcts")).count();
+        }
+        // Later boards reuse the workers the first one started.
+        for (long count : threads) {
+            assert (count == threads[0]) : String.format("%s then %s Monte Carlo threads.", threads[0], count);
+        }
+    }
+}
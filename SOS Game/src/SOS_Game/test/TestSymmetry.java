@@ -0,0 +1,114 @@
+package SOS_Game.test;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile.TileValue;
+import SOS_Game.src.Position;
+import SOS_Game.src.SearchEngine;
+import SOS_Game.src.Symmetry;
+
+public class TestSymmetry {
+    @Test
+    public void testSymmetriesArePermutations() {
+        for (int size = 1; size <= Symmetry.MAX_SIZE; size++) {
+            Symmetry symmetry = Symmetry.of(size);
+            for (int t = 0; t < Symmetry.COUNT; t++) {
+                boolean[] seen = new boolean[size * size];
+                for (int cell = 0; cell < size * size; cell++) {
+                    int image = symmetry.cell(t, cell);
+                    assert (!seen[image]);
+                    seen[image] = true;
+                    assert (symmetry.inverseCell(t, image) == cell);
+                    for (int tile = 0; tile < 2; tile++) {
+                        assert (symmetry.inverseMove(t, symmetry.move(t, cell * 2 + tile)) == cell * 2 + tile);
+                    }
+                }
+            }
+            for (int cell = 0; cell < size * size; cell++) {
+                assert (symmetry.cell(Symmetry.IDENTITY, cell) == cell);
+            }
+        }
+        // The 3x3 corner reaches all four corners, and the edge all four edges.
+        Symmetry symmetry = Symmetry.of(3);
+        int corners = 0;
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            corners |= 1 << symmetry.cell(t, 0);
+            assert (symmetry.cell(t, 4) == 4);
+            assert (symmetry.cell(t, 1) % 2 == 1);
+        }
+        assert (corners == (1 | 1 << 2 | 1 << 6 | 1 << 8));
+    }
+
+    @Test
+    public void testImagesShareCanonicalHash() {
+        Random random = new Random(24);
+        for (int size = 3; size <= 6; size++) {
+            Symmetry symmetry = Symmetry.of(size);
+            Position position = new Position(size, Board.GameMode.General);
+            while (!position.isFull()) {
+                int cell = position.getEmptyCells().get(random.nextInt(position.getEmptyCells().size()));
+                position.play(cell * 2 + random.nextInt(2));
+                for (int t = 0; t < Symmetry.COUNT; t++) {
+                    Position image = new Position(size, Board.GameMode.General);
+                    for (int c = 0; c < size * size; c++) {
+                        TileValue tile = position.getTile(c);
+                        if (tile != TileValue.None) {
+                            image.play(Position.move(symmetry.cell(t, c), tile));
+                        }
+                    }
+                    assert (image.getCanonicalHash() == position.getCanonicalHash());
+                    // The canonical symmetry maps both positions onto the same board.
+                    int u = position.getCanonicalSymmetry();
+                    int v = image.getCanonicalSymmetry();
+                    for (int c = 0; c < size * size; c++) {
+                        assert (position.getTile(symmetry.inverseCell(u, c)) == image.getTile(symmetry.inverseCell(v, c)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUndoRestoresCanonicalHash() {
+        Position position = new Position(4, Board.GameMode.Simple);
+        position.play(Position.move(5, TileValue.O));
+        long hash = position.getCanonicalHash();
+        int gained = position.play(Position.move(0, TileValue.S));
+        assert (position.getCanonicalHash() != hash);
+        position.undo(Position.move(0, TileValue.S), gained);
+        assert (position.getCanonicalHash() == hash);
+    }
+
+    @Test
+    public void testSearchAgreesAcrossImages() {
+        Symmetry symmetry = Symmetry.of(4);
+        int[] moves = {Position.move(0, TileValue.S), Position.move(5, TileValue.O), Position.move(7, TileValue.S),
+                Position.move(9, TileValue.O), Position.move(14, TileValue.S), Position.move(3, TileValue.O)};
+        Integer value = null;
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            Position image = new Position(4, Board.GameMode.General);
+            for (int move : moves) {
+                image.play(symmetry.move(t, move));
+            }
+            SearchEngine search = new SearchEngine(1 << 16, 60_000);
+            int best = search.bestMove(image);
+            assert (search.getLastDepth() == image.getEmptyCells().size());
+            assert (value == null || search.getLastValue() == value);
+            value = search.getLastValue();
+
+            // The best move must achieve the value, whichever frame the table stored it in.
+            assert (image.getTile(Position.moveCell(best)) == TileValue.None);
+            int gained = image.play(best);
+            int reply = 0;
+            if (!image.isFull()) {
+                SearchEngine replySearch = new SearchEngine(1 << 16, 60_000);
+                replySearch.bestMove(image);
+                reply = replySearch.getLastValue();
+            }
+            assert (gained - reply == value);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package SOS_Game.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile.TileValue;
+import SOS_Game.src.Position;
+import SOS_Game.src.SearchEngine;
+import SOS_Game.src.Tablebase;
+
+public class TestTablebase {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = File.createTempFile("sos-tablebase", ".sostb");
+    }
+
+    @After
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    @Test
+    public void testGeneralTableMatchesExhaustiveSearch() throws IOException {
+        checkAgainstSearch(Board.GameMode.General);
+    }
+
+    @Test
+    public void testSimpleTableMatchesExhaustiveSearch() throws IOException {
+        checkAgainstSearch(Board.GameMode.Simple);
+    }
+
+    @Test
+    public void testSearchOnlyLooksUpGivenTables() throws IOException {
+        Tablebase.solve(3, Board.GameMode.General, this.file);
+        Tablebase table = Tablebase.open(this.file);
+        Position position = new Position(3, Board.GameMode.General);
+        position.play(Position.move(4, TileValue.O));
+
+        SearchEngine search = new SearchEngine(1 << 16, 60_000);
+        search.bestMove(position);
+        assert (search.getNodes() > 0);
+
+        search.setTablebases((size, mode) -> size == 3 && mode == Board.GameMode.General ? table : null);
+        int best = search.bestMove(position);
+        assert (search.getNodes() == 0);
+        assert (best == table.bestMove(position) && search.getLastValue() == table.value(position));
+
+        search.setTablebases(null);
+        search.bestMove(position);
+        assert (search.getNodes() > 0);
+    }
+
+    @Test
+    public void testCorruptTableIsRejected() throws IOException {
+        Tablebase.solve(3, Board.GameMode.General, this.file);
+        try (RandomAccessFile truncated = new RandomAccessFile(this.file, "rw")) {
+            truncated.setLength(truncated.length() - 1);
+        }
+        try {
+            Tablebase.open(this.file);
+            assert (false) : "Truncated tablebase was opened.";
+        } catch (IOException e) {
+            assert (e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test
+    public void testUnknownModeIsRejected() throws IOException {
+        Tablebase.solve(3, Board.GameMode.General, this.file);
+        try (RandomAccessFile table = new RandomAccessFile(this.file, "rw")) {
+            // The mode follows the magic, the version and the board size.
+            table.seek(12);
+            table.writeInt(7);
+        }
+        try {
+            Tablebase.open(this.file);
+            assert (false) : "Tablebase of an unknown mode was opened.";
+        } catch (IOException e) {
+            assert (e.getMessage().contains("corrupt"));
+        }
+    }
+
+    /**
+     * Every position met in random games must have the value an exhaustive search finds, and its stored move must
+     * achieve that value.
+     */
+    private void checkAgainstSearch(Board.GameMode mode) throws IOException {
+        int entries = Tablebase.solve(3, mode, this.file);
+        Tablebase table = Tablebase.open(this.file);
+        assert (table.getEntryCount() == entries);
+        assert (table.getBoardSize() == 3 && table.getGameMode() == mode);
+
+        SearchEngine search = new SearchEngine(1 << 16, 60_000);
+        Random random = new Random(3);
+        int checked = 0;
+        for (int game = 0; game < 40; game++) {
+            Position position = new Position(3, mode);
+            while (!position.isOver()) {
+                search.bestMove(position);
+                // The search stops deepening once it finds a forced win or loss.
+                assert (search.getLastDepth() == position.getEmptyCells().size() || Math.abs(search.getLastValue()) >= SearchEngine.WIN);
+                int value = table.value(position);
+                assert (search.getLastValue() == (mode == Board.GameMode.Simple ? value * SearchEngine.WIN : value)) :
+                        String.format("Search says %s, table says %s.", search.getLastValue(), value);
+
+                int best = table.bestMove(position);
+                assert (position.getTile(Position.moveCell(best)) == TileValue.None);
+                int gained = position.play(best);
+                int achieved;
+                if (mode == Board.GameMode.Simple && gained > 0) {
+                    achieved = 1;
+                } else if (position.isFull()) {
+                    achieved = gained;
+                } else {
+                    achieved = (mode == Board.GameMode.Simple ? 0 : gained) - table.value(position);
+                }
+                position.undo(best, gained);
+                assert (achieved == value) : String.format("Stored move achieves %s, not %s.", achieved, value);
+                checked++;
+
+                int cell = position.getEmptyCells().get(random.nextInt(position.getEmptyCells().size()));
+                position.play(cell * 2 + random.nextInt(2));
+            }
+        }
+        assert (checked > 100);
+    }
+}
@@ -0,0 +1,142 @@
+package SOS_Game.test;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import SOS_Game.src.Board;
+import SOS_Game.src.BoardTile.TileValue;
+import SOS_Game.src.EmptyCells;
+import SOS_Game.src.Player;
+import SOS_Game.src.Position;
+import SOS_Game.src.ThreatIndex;
+
+public class TestThreatIndex {
+    @Test
+    public void testIndexMatchesBruteForceThroughPlayAndUndo() {
+        Random random = new Random(25);
+        for (int size = 3; size <= 7; size++) {
+            Position position = new Position(size, Board.GameMode.General);
+            ThreatIndex threats = position.getThreats();
+            int[] moves = new int[size * size];
+            int[] gains = new int[size * size];
+            int played = 0;
+            for (int step = 0; step < 4 * size * size; step++) {
+                // Mostly play, sometimes take back, so that undo is exercised on busy boards too.
+                if (played > 0 && (position.isFull() || random.nextInt(4) == 0)) {
+                    played--;
+                    position.undo(moves[played], gains[played]);
+                } else {
+                    EmptyCells empty = position.getEmptyCells();
+                    moves[played] = empty.get(random.nextInt(empty.size())) * 2 + random.nextInt(2);
+                    gains[played] = position.play(moves[played]);
+                    played++;
+                }
+                checkAgainstBruteForce(position, threats);
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOfCopyStartsFromTilesOnBoard() {
+        Position position = new Position(5, Board.GameMode.General);
+        position.play(Position.move(0, TileValue.S));
+        position.play(Position.move(1, TileValue.O));
+        position.play(Position.move(12, TileValue.O));
+        Position copy = position.copy();
+        checkAgainstBruteForce(copy, copy.getThreats());
+        assert (copy.getThreats().isScoring(Position.move(2, TileValue.S)));
+        assert (copy.getThreats().gain(Position.move(2, TileValue.S)) == 1);
+    }
+
+    @Test
+    public void testComputerTakesScoringMove() {
+        Board board = new Board(5, new Random(1));
+        board.setGameMode(Board.GameMode.General);
+        board.playerOne.setTile(TileValue.S);
+        board.makeMove(2, 0);
+        board.playerTwo.setTile(TileValue.O);
+        board.makeMove(2, 1);
+        board.playerOne.setStyle(Player.PlayStyle.Computer);
+        board.makeComputerMove();
+
+        assert (board.getTile(2, 2).getValue() == TileValue.S);
+        assert (board.playerOne.getPoints() == 1);
+    }
+
+    @Test
+    public void testComputerDoesNotSetUpLines() {
+        for (int seed = 0; seed < 20; seed++) {
+            Board board = new Board(4, new Random(seed));
+            board.setGameMode(Board.GameMode.Simple);
+            board.playerOne.setTile(TileValue.S);
+            board.makeMove(0, 0);
+            board.playerTwo.setStyle(Player.PlayStyle.Computer);
+            board.makeComputerMove();
+
+            // An O next to the S, or an S two cells away in line, would hand player one the game.
+            Position position = board.toPosition();
+            assert (position.getThreats().scoringCount() == 0) : String.format("Seed %s set up a line.", seed);
+        }
+    }
+
+    @Test
+    public void testGreedyComputerBeatsRandomPlay() {
+        Random random = new Random(5);
+        int greedyPoints = 0;
+        int randomPoints = 0;
+        for (int game = 0; game < 200; game++) {
+            Position position = new Position(6, Board.GameMode.General);
+            int greedySide = game % 2;
+            while (!position.isFull()) {
+                int move;
+                if (position.getSide() == greedySide) {
+                    move = position.getThreats().greedyMove(position.getEmptyCells(), random);
+                } else {
+                    EmptyCells empty = position.getEmptyCells();
+                    move = empty.get(random.nextInt(empty.size())) * 2 + random.nextInt(2);
+                }
+                position.play(move);
+            }
+            greedyPoints += position.getPoints(greedySide);
+            randomPoints += position.getPoints(greedySide ^ 1);
+        }
+        assert (greedyPoints > 2 * randomPoints) : String.format("Greedy %s, random %s.", greedyPoints, randomPoints);
+    }
+
+    /**
+     * A move scores if it completes a line, and is unsafe if it completes none but raises the gain of some other move.
+     */
+    private static void checkAgainstBruteForce(Position position, ThreatIndex threats) {
+        // Playing and taking back a move reorders the empty cells, so list them first.
+        EmptyCells empty = position.getEmptyCells();
+        int[] moves = new int[2 * empty.size()];
+        for (int slot = 0; slot < empty.size(); slot++) {
+            moves[2 * slot] = empty.get(slot) * 2;
+            moves[2 * slot + 1] = empty.get(slot) * 2 + 1;
+        }
+        int[] before = new int[2 * position.getSize() * position.getSize()];
+        for (int move : moves) {
+            before[move] = position.gain(move);
+        }
+        int scoring = 0;
+        int unsafe = 0;
+        for (int move : moves) {
+            int gain = before[move];
+            boolean setsUp = false;
+            if (gain == 0) {
+                int gained = position.play(move);
+                for (int reply : moves) {
+                    setsUp |= Position.moveCell(reply) != Position.moveCell(move) && position.gain(reply) > before[reply];
+                }
+                position.undo(move, gained);
+            }
+            assert (threats.isScoring(move) == gain > 0) : String.format("Move %s gains %s.", move, gain);
+            assert (threats.gain(move) == gain);
+            assert (threats.isUnsafe(move) == setsUp) : String.format("Move %s sets up: %s.", move, setsUp);
+            scoring += gain > 0 ? 1 : 0;
+            unsafe += setsUp ? 1 : 0;
+        }
+        assert (threats.scoringCount() == scoring && threats.unsafeCount() == unsafe);
+    }
+}